@@ -0,0 +1,198 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * The saved state of a search: which search it is and with what parameters, its
+ * counters, and its frontier, the path to the next node it will expand.  Every node
+ * before that path in search order is finished.  A search that writes its results to a
+ * file also records how many bytes of that file were durable when it saved, so a restart
+ * can cut off anything written after the checkpoint.
+ *
+ * The file is big-endian:
+ *   int magic "HCKP", int version
+ *   short name length, UTF-8 search name
+ *   int count, then the ints of parameters, counters (as longs) and frontier in turn
+ *   long output bytes
+ *   byte complete
+ *   int CRC32 of everything before it
+ * It is written to a temporary file, forced to disk and moved over the old one, so a
+ * crash leaves either the old checkpoint or the new one.
+ */
+public class Checkpoint {
+  private static final int MAGIC = 0x48434b50;
+  private static final int VERSION = 2;
+  // Magic, version, empty name, three empty lists, output bytes, complete flag and CRC.
+  private static final int MIN_BYTES = 2 * Integer.BYTES + Short.BYTES + 3 * Integer.BYTES
+      + Long.BYTES + 1 + Integer.BYTES;
+
+  private final String search;
+  private final int[] parameters;
+  private final long[] counters;
+  private final int[] frontier;
+  private final long outputBytes;
+  private final boolean complete;
+
+  public Checkpoint(String search, int[] parameters, long[] counters, int[] frontier,
+      boolean complete) {
+    this(search, parameters, counters, frontier, 0, complete);
+  }
+
+  private Checkpoint(String search, int[] parameters, long[] counters, int[] frontier,
+      long outputBytes, boolean complete) {
+    this.search = search;
+    this.parameters = parameters.clone();
+    this.counters = counters.clone();
+    this.frontier = frontier.clone();
+    this.outputBytes = outputBytes;
+    this.complete = complete;
+  }
+
+  /** Returns this checkpoint recording outputBytes bytes of durable output. */
+  public Checkpoint withOutputBytes(long outputBytes) {
+    return new Checkpoint(search, parameters, counters, frontier, outputBytes, complete);
+  }
+
+  public String getSearch() {
+    return search;
+  }
+
+  public int[] getParameters() {
+    return parameters.clone();
+  }
+
+  public long[] getCounters() {
+    return counters.clone();
+  }
+
+  public int[] getFrontier() {
+    return frontier.clone();
+  }
+
+  /** The length of the search's output file when this was saved, or 0 if it has none. */
+  public long getOutputBytes() {
+    return outputBytes;
+  }
+
+  /** Whether the search finished, so there is nothing left to resume. */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /** Whether this checkpoint was saved by the given search with the given parameters. */
+  public boolean matches(String search, int[] parameters) {
+    return this.search.equals(search) && Arrays.equals(this.parameters, parameters);
+  }
+
+  /** Returns the checkpoint in the file, or null if there is no file. */
+  public static Checkpoint read(Path file) {
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(file);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Preconditions.checkState(bytes.length >= MIN_BYTES, "Checkpoint %s is corrupt", file);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length - Integer.BYTES);
+    Preconditions.checkState(buffer.getInt(bytes.length - Integer.BYTES) == (int) crc.getValue(),
+        "Checkpoint %s is corrupt", file);
+    Preconditions.checkState(buffer.getInt() == MAGIC, "%s is not a checkpoint", file);
+    int version = buffer.getInt();
+    Preconditions.checkState(version == VERSION, "Checkpoint version %s unsupported", version);
+    byte[] name = new byte[buffer.getShort()];
+    buffer.get(name);
+    int[] parameters = new int[buffer.getInt()];
+    for (int i = 0; i < parameters.length; i++) {
+      parameters[i] = buffer.getInt();
+    }
+    long[] counters = new long[buffer.getInt()];
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = buffer.getLong();
+    }
+    int[] frontier = new int[buffer.getInt()];
+    for (int i = 0; i < frontier.length; i++) {
+      frontier[i] = buffer.getInt();
+    }
+    long outputBytes = buffer.getLong();
+    boolean complete = buffer.get() != 0;
+    return new Checkpoint(new String(name, StandardCharsets.UTF_8), parameters, counters,
+        frontier, outputBytes, complete);
+  }
+
+  /** Atomically replaces the file with this checkpoint. */
+  public void write(Path file) {
+    byte[] name = search.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + Short.BYTES + name.length
+        + Integer.BYTES * (3 + parameters.length + frontier.length)
+        + Long.BYTES * (counters.length + 1) + 1);
+    buffer.putInt(MAGIC).putInt(VERSION).putShort((short) name.length).put(name);
+    buffer.putInt(parameters.length);
+    for (int parameter : parameters) {
+      buffer.putInt(parameter);
+    }
+    buffer.putInt(counters.length);
+    for (long counter : counters) {
+      buffer.putLong(counter);
+    }
+    buffer.putInt(frontier.length);
+    for (int node : frontier) {
+      buffer.putInt(node);
+    }
+    buffer.putLong(outputBytes);
+    buffer.put((byte) (complete ? 1 : 0));
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, buffer.position());
+    buffer.putInt((int) crc.getValue());
+    buffer.flip();
+
+    Path absolute = file.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+      Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      forceDirectory(absolute.getParent());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Makes the rename durable; not every platform can open a directory, so best effort. */
+  private static void forceDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // The move itself is still atomic.
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s%s counters %s frontier %s output %d%s", search,
+        Arrays.toString(parameters), Arrays.toString(counters), Arrays.toString(frontier),
+        outputBytes, complete ? " complete" : "");
+  }
+}
@@ -0,0 +1,59 @@
+package hadamard;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when a search saves its Checkpoint and where.  Searches ask isDue() as they
+ * reach each node.
+ *
+ * The interval defaults to the hadamard.checkpoint.seconds system property, or 60.
+ */
+public class Checkpointer {
+  private final Path file;
+  private final long intervalNanos;
+  private long nextDue;
+  private LongSupplier output;
+
+  public Checkpointer(Path file) {
+    this(file, Duration.ofSeconds(Long.getLong("hadamard.checkpoint.seconds", 60)));
+  }
+
+  public Checkpointer(Path file, Duration interval) {
+    this.file = file;
+    this.intervalNanos = interval.toNanos();
+    this.nextDue = System.nanoTime() + intervalNanos;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Calls output before each save to make the search's output file durable and return
+   * its length, which the checkpoint records.  A restart truncates the file to that
+   * length, dropping results, or a partial line, written after the checkpoint.
+   */
+  public void setOutput(LongSupplier output) {
+    this.output = output;
+  }
+
+  /** Returns the saved checkpoint if it was saved by this search, otherwise null. */
+  public Checkpoint load(String search, int[] parameters) {
+    Checkpoint checkpoint = Checkpoint.read(file);
+    return checkpoint != null && checkpoint.matches(search, parameters) ? checkpoint : null;
+  }
+
+  public synchronized boolean isDue() {
+    return System.nanoTime() - nextDue >= 0;
+  }
+
+  public synchronized void save(Checkpoint checkpoint) {
+    if (output != null) {
+      checkpoint = checkpoint.withOutputBytes(output.getAsLong());
+    }
+    checkpoint.write(file);
+    nextDue = System.nanoTime() + intervalNanos;
+  }
+}
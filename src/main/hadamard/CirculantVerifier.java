@@ -0,0 +1,201 @@
+package hadamard;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+import java.util.Arrays;
+
+/**
+ * Verifies circulant and bordered-circulant +1/-1 matrices from one sequence rather than
+ * from all row pairs.
+ *
+ * A circulant matrix has row i equal to row 0 rotated right by i; rows i and i + k have
+ * dot product equal to the periodic autocorrelation PAF(k) of row 0, so it is Hadamard
+ * exactly when PAF(k) = 0 for 0 < k < n.  A bordered-circulant matrix has a first row
+ * (h, r, ..., r), a first column (h, c, ..., c) and a circulant core with first row s;
+ * it is Hadamard exactly when h * c + r * sum(s) = 0 and PAF_s(k) = -1 for every
+ * nonzero shift.  Paley construction one for prime q has this form.
+ *
+ * Detection packs and compares each row once, O(n^2 / 64).  The autocorrelation is
+ * computed with popcounts for short sequences, O(n^2 / 64), and with an FFT for long
+ * ones, O(n log n).  The failing pair reported is the one HadamardVerifier would report.
+ */
+public class CirculantVerifier {
+  public enum Structure { CIRCULANT, BORDERED_CIRCULANT, NONE }
+
+  private static final int FFT_MIN_LENGTH = 1 << 14;
+
+  public static Structure detect(MatrixView matrix) {
+    Detection detection = Detection.of(matrix);
+    return detection == null ? Structure.NONE : detection.structure;
+  }
+
+  /** Returns the verification result, or null if the matrix isn't (bordered) circulant. */
+  public static HadamardVerifier.Result verify(MatrixView matrix) {
+    Detection detection = Detection.of(matrix);
+    if (detection == null) {
+      return null;
+    }
+    if (detection.structure == Structure.CIRCULANT) {
+      int shift = firstShiftWithout(detection.sequence, detection.length, 0);
+      return shift == 0 ? HadamardVerifier.Result.HADAMARD
+          : HadamardVerifier.Result.notOrthogonal(0, shift,
+              periodicAutocorrelation(detection.sequence, detection.length, shift));
+    }
+    int borderDot = detection.corner * detection.columnBorder
+        + detection.rowBorder * sum(detection.sequence, detection.length);
+    if (borderDot != 0) {
+      return HadamardVerifier.Result.notOrthogonal(0, 1, borderDot);
+    }
+    int shift = firstShiftWithout(detection.sequence, detection.length, -1);
+    return shift == 0 ? HadamardVerifier.Result.HADAMARD
+        : HadamardVerifier.Result.notOrthogonal(1, 1 + shift,
+            1 + periodicAutocorrelation(detection.sequence, detection.length, shift));
+  }
+
+  private static class Detection {
+    Structure structure;
+    // The circulant's first row in PackedMatrix layout.
+    long[] sequence;
+    int length;
+    int corner;
+    int rowBorder;
+    int columnBorder;
+
+    static Detection of(MatrixView matrix) {
+      int order = matrix.size();
+      int words = PackedMatrix.wordsPerRow(order);
+      long[] first = new long[words];
+      if (order < 2 || !matrix.packRow(0, first)) {
+        return null;
+      }
+      // Candidate core sequence for the bordered form: row 1 without its first column.
+      long[] row = new long[words];
+      if (!matrix.packRow(1, row)) {
+        return null;
+      }
+      long[] core = new long[words];
+      PackedMatrix.copyBits(row, 1, core, 0, order - 1);
+      boolean circulant = true;
+      boolean bordered = order >= 3 && isConstant(first, 1, order - 1);
+      int columnBorder = entry(row, 0);
+      long[] expected = new long[words];
+      long[] actual = new long[words];
+      for (int i = 1; i < order && (circulant || bordered); i++) {
+        if (i > 1 && !matrix.packRow(i, row)) {
+          return null;
+        }
+        if (circulant) {
+          rotate(first, order, i, expected);
+          circulant = Arrays.equals(expected, row);
+        }
+        if (bordered) {
+          rotate(core, order - 1, i - 1, expected);
+          Arrays.fill(actual, 0L);
+          PackedMatrix.copyBits(row, 1, actual, 0, order - 1);
+          bordered = entry(row, 0) == columnBorder && Arrays.equals(expected, actual);
+        }
+      }
+      Detection detection = new Detection();
+      if (circulant) {
+        detection.structure = Structure.CIRCULANT;
+        detection.sequence = first;
+        detection.length = order;
+      } else if (bordered) {
+        detection.structure = Structure.BORDERED_CIRCULANT;
+        detection.sequence = core;
+        detection.length = order - 1;
+        detection.corner = entry(first, 0);
+        detection.rowBorder = entry(first, 1);
+        detection.columnBorder = columnBorder;
+      } else {
+        return null;
+      }
+      return detection;
+    }
+  }
+
+  private static int entry(long[] words, int column) {
+    return (words[column >>> 6] & (1L << column)) == 0 ? 1 : -1;
+  }
+
+  private static boolean isConstant(long[] words, int start, int length) {
+    int value = entry(words, start);
+    for (int column = start + 1; column < start + length; column++) {
+      if (entry(words, column) != value) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Writes sequence rotated right by shift: bit j of rotated is bit (j - shift) mod n. */
+  static void rotate(long[] sequence, int length, int shift, long[] rotated) {
+    Arrays.fill(rotated, 0L);
+    PackedMatrix.copyBits(sequence, 0, rotated, shift, length - shift);
+    PackedMatrix.copyBits(sequence, length - shift, rotated, 0, shift);
+  }
+
+  private static int sum(long[] sequence, int length) {
+    int negatives = 0;
+    for (long word : sequence) {
+      negatives += Long.bitCount(word);
+    }
+    return length - 2 * negatives;
+  }
+
+  static int periodicAutocorrelation(long[] sequence, int length, int shift) {
+    long[] rotated = new long[sequence.length];
+    rotate(sequence, length, shift, rotated);
+    return length - 2 * PackedMatrix.numDifferences(sequence, rotated);
+  }
+
+  /** Returns the smallest shift k > 0 with PAF(k) != expected, or 0 if there is none. */
+  private static int firstShiftWithout(long[] sequence, int length, int expected) {
+    if (length >= FFT_MIN_LENGTH) {
+      long[] autocorrelation = periodicAutocorrelations(sequence, length);
+      for (int shift = 1; shift < length; shift++) {
+        if (autocorrelation[shift] != expected) {
+          return shift;
+        }
+      }
+      return 0;
+    }
+    long[] rotated = new long[sequence.length];
+    for (int shift = 1; shift < length; shift++) {
+      rotate(sequence, length, shift, rotated);
+      if (length - 2 * PackedMatrix.numDifferences(sequence, rotated) != expected) {
+        return shift;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns PAF(k) for every k in [0, length) via an FFT of the zero-padded sequence.
+   * The linear autocorrelation c gives PAF(k) = c(k) + c(length - k).
+   */
+  static long[] periodicAutocorrelations(long[] sequence, int length) {
+    int padded = Integer.highestOneBit(2 * length - 1) << 1;
+    double[] values = new double[padded];
+    for (int i = 0; i < length; i++) {
+      values[i] = entry(sequence, i);
+    }
+    FastFourierTransformer fft = new FastFourierTransformer(DftNormalization.STANDARD);
+    Complex[] spectrum = fft.transform(values, TransformType.FORWARD);
+    for (int i = 0; i < padded; i++) {
+      double real = spectrum[i].getReal();
+      double imaginary = spectrum[i].getImaginary();
+      spectrum[i] = new Complex(real * real + imaginary * imaginary);
+    }
+    Complex[] linear = fft.transform(spectrum, TransformType.INVERSE);
+    long[] result = new long[length];
+    for (int shift = 0; shift < length; shift++) {
+      result[shift] = Math.round(linear[shift].getReal())
+          + (shift == 0 ? 0 : Math.round(linear[length - shift].getReal()));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,214 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Enumerates the normalized Hadamard matrices of a CompatibilityGraph's order as its
+ * (n - 1)-cliques, each once with its rows in increasing code order.
+ *
+ * The search extends a clique one vertex at a time, keeping as a bitset the vertices
+ * after the last one chosen that are adjacent to every chosen vertex, so each step is a
+ * word-wise AND.  A branch stops when too few candidates remain to finish the clique, and
+ * a vertex is skipped when it would put more than n/2 entries of one sign in a column,
+ * since the columns of a Hadamard matrix are balanced too.
+ *
+ * With a Checkpointer the search saves the clique it is about to extend, and
+ * enumerate() resumes after the nodes that were already finished.
+ */
+public class CliqueSearch {
+  /** Receives each clique; return false to stop the search. */
+  public interface Visitor {
+    boolean visit(int[] clique);
+  }
+
+  static final String CHECKPOINT_NAME = "clique";
+
+  private final CompatibilityGraph graph;
+  private final int cliqueSize;
+  private final int half;
+  // candidates[depth] holds the vertices that may be chosen at that depth.
+  private final long[][] candidates;
+  private final int[] clique;
+  // plusCounts[c] counts the chosen rows, and the all-ones row, with +1 in column c.
+  private final int[] plusCounts;
+  private long visited;
+  private boolean stopped;
+  private Checkpointer checkpointer;
+  // Only nodes at shardDepth whose prefix falls in shardIndex are searched.
+  private int shardIndex = 0;
+  private int shardCount = 1;
+  private int shardDepth = 0;
+  // While resuming, the saved clique to descend to before searching.
+  private int[] resumePath;
+  private boolean resuming;
+
+  public CliqueSearch(CompatibilityGraph graph) {
+    this.graph = graph;
+    this.cliqueSize = graph.getOrder() - 1;
+    this.half = graph.getOrder() / 2;
+    int words = CompatibilityGraph.wordsPerSet(graph.vertexCount());
+    this.candidates = new long[cliqueSize + 1][words];
+    this.clique = new int[cliqueSize];
+    this.plusCounts = new int[graph.getOrder()];
+  }
+
+  public void setCheckpointer(Checkpointer checkpointer) {
+    this.checkpointer = checkpointer;
+  }
+
+  /**
+   * Restricts the search to one of shardCount disjoint shards, split by the prefix of
+   * shardDepth rows; see ShardedSearch.shardOf.
+   */
+  public void setShard(int shardIndex, int shardCount, int shardDepth) {
+    Preconditions.checkState(0 <= shardIndex && shardIndex < shardCount,
+        "Shard %s not in [0, %s)", shardIndex, shardCount);
+    Preconditions.checkState(0 < shardDepth && shardDepth <= cliqueSize,
+        "Shard depth %s out of range", shardDepth);
+    this.shardIndex = shardIndex;
+    this.shardCount = shardCount;
+    this.shardDepth = shardDepth;
+  }
+
+  /** Returns the number of matrices, which is the number of cliques visited. */
+  public long count() {
+    return enumerate(clique -> true);
+  }
+
+  /** Visits cliques until the visitor returns false; returns the number visited. */
+  public long enumerate(Visitor visitor) {
+    visited = 0;
+    stopped = false;
+    resuming = false;
+    if (checkpointer != null) {
+      Checkpoint checkpoint = checkpointer.load(CHECKPOINT_NAME, checkpointParameters());
+      if (checkpoint != null) {
+        visited = checkpoint.getCounters()[0];
+        if (checkpoint.isComplete()) {
+          return visited;
+        }
+        resumePath = checkpoint.getFrontier();
+        resuming = true;
+      }
+    }
+    long[] all = candidates[0];
+    Arrays.fill(all, 0);
+    for (int v = 0; v < graph.vertexCount(); v++) {
+      all[v >>> 6] |= 1L << v;
+    }
+    Arrays.fill(plusCounts, 1);
+    search(0, visitor);
+    if (checkpointer != null && !stopped) {
+      checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(),
+          new long[] {visited}, new int[0], true));
+    }
+    return visited;
+  }
+
+  private int[] checkpointParameters() {
+    return new int[] {graph.getOrder(), shardIndex, shardCount, shardDepth};
+  }
+
+  /** Returns the first matrix found, or null if there is none. */
+  public Matrix findFirst() {
+    int[][] first = new int[1][];
+    enumerate(found -> {
+      first[0] = found.clone();
+      return false;
+    });
+    return first[0] == null ? null : graph.toMatrix(first[0]);
+  }
+
+  private void search(int depth, Visitor visitor) {
+    if (resuming && depth == resumePath.length) {
+      resuming = false;
+    }
+    if (depth == shardDepth && ShardedSearch.shardOf(clique, depth, shardCount) != shardIndex) {
+      return;
+    }
+    if (!resuming && checkpointer != null && checkpointer.isDue()) {
+      checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(),
+          new long[] {visited}, Arrays.copyOf(clique, depth), false));
+    }
+    if (depth == cliqueSize) {
+      visited++;
+      stopped = !visitor.visit(clique);
+      return;
+    }
+    // Code bits of the columns that already hold n/2 entries of +1, or of -1.
+    int order = graph.getOrder();
+    int plusFull = 0;
+    int minusFull = 0;
+    for (int column = 1; column < order; column++) {
+      int bit = 1 << (order - 1 - column);
+      if (plusCounts[column] == half) {
+        plusFull |= bit;
+      } else if (depth + 1 - plusCounts[column] == half) {
+        minusFull |= bit;
+      }
+    }
+    long[] available = candidates[depth];
+    int remaining = 0;
+    for (long word : available) {
+      remaining += Long.bitCount(word);
+    }
+    for (int word = 0; word < available.length && !stopped; word++) {
+      long bits = available[word];
+      while (bits != 0 && !stopped) {
+        if (remaining < cliqueSize - depth) {
+          return;
+        }
+        int v = (word << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        remaining--;
+        if (resuming) {
+          if (v < resumePath[depth]) {
+            continue;
+          }
+          resuming = v == resumePath[depth];
+        }
+        int code = graph.code(v);
+        if ((code & plusFull) != 0 || (~code & minusFull) != 0) {
+          continue;
+        }
+        clique[depth] = v;
+        if (depth + 1 < cliqueSize
+            && !narrow(available, v, candidates[depth + 1], cliqueSize - depth - 1)) {
+          continue;
+        }
+        addColumns(code, 1);
+        search(depth + 1, visitor);
+        addColumns(code, -1);
+      }
+    }
+  }
+
+  /**
+   * Writes the candidates after v that are adjacent to v into next, returning false if
+   * fewer than needed remain.
+   */
+  private boolean narrow(long[] available, int v, long[] next, int needed) {
+    long[] neighbors = graph.neighbors(v);
+    int first = v >>> 6;
+    Arrays.fill(next, 0, first, 0);
+    int count = 0;
+    for (int word = first; word < next.length; word++) {
+      next[word] = available[word] & neighbors[word];
+      count += Long.bitCount(next[word]);
+    }
+    // Bits at or below v in its own word came before it.
+    long before = next[first] & (-1L >>> (63 - (v & 63)));
+    next[first] ^= before;
+    count -= Long.bitCount(before);
+    return count >= needed;
+  }
+
+  private void addColumns(int code, int sign) {
+    int order = graph.getOrder();
+    for (int column = 1; column < order; column++) {
+      plusCounts[column] += sign * ((code >>> (order - 1 - column)) & 1);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rows that may follow the all-ones row in a normalized Hadamard matrix of order n,
+ * joined when they are orthogonal.  A normalized matrix has +1 throughout its first row
+ * and column, so every other row starts with +1 and has n/2 entries of each sign; two
+ * such rows are orthogonal when they differ in exactly n/2 places.  The n - 1 rows
+ * below the first are then exactly an (n - 1)-clique of this graph.
+ *
+ * Vertices are Row.fromBits codes (bit n - 1 - c set when column c is +1) in
+ * increasing order, so a vertex's code is its row's getSummaryInt().  Adjacency is one
+ * bitset of longs per vertex.
+ */
+public class CompatibilityGraph {
+  // 6435 vertices at order 16; order 20 would need a gigabyte of adjacency.
+  static final int MAX_ORDER = 16;
+
+  private final int order;
+  private final int[] codes;
+  private final long[][] adjacency;
+
+  public static CompatibilityGraph normalizedRows(int order) {
+    Preconditions.checkState(order >= 4 && order % 4 == 0 && order <= MAX_ORDER,
+        "Order %s is not a multiple of 4 in [4, %s]", order, MAX_ORDER);
+    List<Integer> codes = new ArrayList<>();
+    int leading = 1 << (order - 1);
+    for (int code = leading; code < leading << 1; code++) {
+      if (Integer.bitCount(code) == order / 2) {
+        codes.add(code);
+      }
+    }
+    return new CompatibilityGraph(order, codes.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  private CompatibilityGraph(int order, int[] codes) {
+    this.order = order;
+    this.codes = codes;
+    this.adjacency = new long[codes.length][wordsPerSet(codes.length)];
+    for (int u = 0; u < codes.length; u++) {
+      for (int v = u + 1; v < codes.length; v++) {
+        if (Integer.bitCount(codes[u] ^ codes[v]) == order / 2) {
+          adjacency[u][v >>> 6] |= 1L << v;
+          adjacency[v][u >>> 6] |= 1L << u;
+        }
+      }
+    }
+  }
+
+  static int wordsPerSet(int vertices) {
+    return (vertices + 63) >>> 6;
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  public int vertexCount() {
+    return codes.length;
+  }
+
+  /** Returns the Row.fromBits code of a vertex. */
+  public int code(int vertex) {
+    return codes[vertex];
+  }
+
+  public Row row(int vertex) {
+    return Row.fromBits(order, codes[vertex]);
+  }
+
+  public boolean isAdjacent(int u, int v) {
+    return (adjacency[u][v >>> 6] & (1L << v)) != 0;
+  }
+
+  /** Returns the neighbor bitset of a vertex.  Callers must not modify it. */
+  public long[] neighbors(int vertex) {
+    return adjacency[vertex];
+  }
+
+  public int degree(int vertex) {
+    int degree = 0;
+    for (long word : adjacency[vertex]) {
+      degree += Long.bitCount(word);
+    }
+    return degree;
+  }
+
+  /** Returns the normalized matrix with the given vertices below the all-ones row. */
+  public Matrix toMatrix(int[] vertices) {
+    int[][] values = new int[vertices.length + 1][];
+    values[0] = new int[order];
+    Arrays.fill(values[0], 1);
+    for (int i = 0; i < vertices.length; i++) {
+      Row row = row(vertices[i]);
+      values[i + 1] = new int[order];
+      for (int column = 0; column < order; column++) {
+        values[i + 1][column] = row.at(column);
+      }
+    }
+    return new Matrix(values);
+  }
+}
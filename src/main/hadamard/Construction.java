@@ -0,0 +1,15 @@
+package hadamard;
+
+/** The recipes that can build a Hadamard matrix. */
+public enum Construction {
+  /** Paley construction one from GF(q), q = 3 (mod 4), order q + 1. */
+  PALEY_ONE,
+  /** Paley construction two from GF(q), q = 1 (mod 4), order 2(q + 1). */
+  PALEY_TWO,
+  /** The Sylvester matrix of a power-of-two order. */
+  SYLVESTER,
+  /** The Kronecker product of two smaller Hadamard matrices. */
+  KRONECKER,
+  /** Williamson sequences of odd length m, order 4m. */
+  WILLIAMSON,
+}
@@ -0,0 +1,156 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds and verifies a list of Paley constructions concurrently on a fixed number of
+ * threads, timing each one.  Each task verifies single-threaded, since the batch
+ * already keeps every thread busy.  A construction that throws is reported as a failed
+ * result carrying its error, and the rest of the batch still runs.
+ *
+ * Usage: ConstructionBatch [maxOrder [threads]]
+ */
+public class ConstructionBatch implements AutoCloseable {
+  public static void main(String args[]) throws Exception {
+    int maxOrder = args.length > 0 ? Integer.parseInt(args[0]) : PaleyConstructionParameters.MAX_ORDER;
+    int threads = args.length > 1
+        ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    List<PaleyConstructionParameters.ConstructionParameters> parameters = new ArrayList<>();
+    PaleyConstructionParameters.generateParameters(maxOrder).entries().stream()
+        .sorted((a, b) -> Integer.compare(a.getKey(), b.getKey()))
+        .forEach(entry -> parameters.add(entry.getValue()));
+
+    long start = System.nanoTime();
+    List<Result> results;
+    try (ConstructionBatch batch = new ConstructionBatch(threads)) {
+      results = batch.run(parameters);
+    }
+    int failures = 0;
+    for (Result result : results) {
+      System.out.println(result);
+      if (!result.isValid()) {
+        failures++;
+      }
+    }
+    System.out.printf("%d constructions, %d invalid, %.1f ms on %d threads\n",
+        results.size(), failures, (System.nanoTime() - start) / 1e6, threads);
+    Preconditions.checkState(failures == 0, "%s invalid constructions", failures);
+  }
+
+  /** The outcome of building and verifying one construction. */
+  public static class Result {
+    private final PaleyConstructionParameters.ConstructionParameters parameters;
+    private final int order;
+    private final long buildNanos;
+    private final long verifyNanos;
+    private final HadamardVerifier.Result verification;
+    private final Throwable error;
+
+    Result(PaleyConstructionParameters.ConstructionParameters parameters, int order,
+        long buildNanos, long verifyNanos, HadamardVerifier.Result verification) {
+      this(parameters, order, buildNanos, verifyNanos, verification, null);
+    }
+
+    private Result(PaleyConstructionParameters.ConstructionParameters parameters, int order,
+        long buildNanos, long verifyNanos, HadamardVerifier.Result verification,
+        Throwable error) {
+      this.parameters = parameters;
+      this.order = order;
+      this.buildNanos = buildNanos;
+      this.verifyNanos = verifyNanos;
+      this.verification = verification;
+      this.error = error;
+    }
+
+    static Result failed(PaleyConstructionParameters.ConstructionParameters parameters,
+        Throwable error) {
+      return new Result(parameters, parameters.getOrder(), 0, 0, null, error);
+    }
+
+    public int getOrder() {
+      return order;
+    }
+
+    public long getBuildNanos() {
+      return buildNanos;
+    }
+
+    public long getVerifyNanos() {
+      return verifyNanos;
+    }
+
+    /** The verifier's result, or null if the construction threw. */
+    public HadamardVerifier.Result getVerification() {
+      return verification;
+    }
+
+    /** What the construction threw, or null if it was built and verified. */
+    public Throwable getError() {
+      return error;
+    }
+
+    /** Whether the construction was built and verified as Hadamard. */
+    public boolean isValid() {
+      return error == null && verification.isHadamard();
+    }
+
+    @Override
+    public String toString() {
+      if (error != null) {
+        return String.format("%6d  %-12s failed: %s", order, parameters, error);
+      }
+      return String.format("%6d  %-12s build %9.2f ms  verify %9.2f ms  %s", order,
+          parameters, buildNanos / 1e6, verifyNanos / 1e6, verification);
+    }
+  }
+
+  private final ExecutorService executor;
+
+  public ConstructionBatch(int threads) {
+    Preconditions.checkState(threads > 0, "Need at least one thread, not %s", threads);
+    this.executor = Executors.newFixedThreadPool(threads);
+  }
+
+  /** Returns a result for every construction, in the order given. */
+  public List<Result> run(List<PaleyConstructionParameters.ConstructionParameters> parameters)
+      throws InterruptedException {
+    List<Future<Result>> futures = new ArrayList<>();
+    for (PaleyConstructionParameters.ConstructionParameters parameter : parameters) {
+      futures.add(executor.submit(() -> buildAndVerify(parameter)));
+    }
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        results.add(Result.failed(parameters.get(i), e.getCause()));
+      }
+    }
+    return results;
+  }
+
+  static Result buildAndVerify(PaleyConstructionParameters.ConstructionParameters parameters) {
+    long start = System.nanoTime();
+    GaloisField field = new GaloisField(parameters.p, parameters.k);
+    PaleyMatrix matrix = parameters.constructionMethod
+        == PaleyConstructionParameters.ConstructionParameters.ConstructionMethod.ONE
+        ? PaleyMatrix.constructionOne(field)
+        : PaleyMatrix.constructionTwo(field);
+    long built = System.nanoTime();
+    HadamardVerifier.Result verification = HadamardVerifier.verify(matrix);
+    long verified = System.nanoTime();
+    return new Result(parameters, matrix.size(), built - start, verified - built, verification);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,280 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.math.IntMath;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Keeps built and verified constructions so a repeat request reads a file instead of
+ * rebuilding and re-verifying.
+ *
+ * Each key is stored as a MatrixFile named by a hash of the key, whose header records
+ * the key and whether the matrix verified as Hadamard.  A file is used only if its
+ * header matches the key and its body matches its CRC32; otherwise it is deleted,
+ * counted in getDiscards, and the construction rebuilt.  Reading a file touches its
+ * modification time, and once the files exceed maxDiskBytes the least recently used
+ * are deleted.  In front of the disk, up to maxMemoryBytes of packed matrices are held
+ * in memory, least recently used first out.
+ */
+public class ConstructionCache {
+  static final String SUFFIX = ".hmat";
+
+  /** A construction with its parameters, or a plain order built by OrderPlanner. */
+  public static class Key {
+    private final Construction construction;
+    private final int p;
+    private final int exponent;
+    private final int order;
+
+    public static Key paley(Construction construction, int p, int exponent) {
+      Preconditions.checkState(
+          construction == Construction.PALEY_ONE || construction == Construction.PALEY_TWO,
+          "%s is not a Paley construction", construction);
+      int q = IntMath.checkedPow(p, exponent);
+      return new Key(construction, p, exponent, construction == Construction.PALEY_ONE
+          ? Math.addExact(q, 1) : Math.multiplyExact(2, Math.addExact(q, 1)));
+    }
+
+    public static Key order(int order) {
+      return new Key(null, 0, 0, order);
+    }
+
+    private Key(Construction construction, int p, int exponent, int order) {
+      this.construction = construction;
+      this.p = p;
+      this.exponent = exponent;
+      this.order = order;
+    }
+
+    public int getOrder() {
+      return order;
+    }
+
+    String fileName() {
+      return Hashing.sha256().hashString(toString(), StandardCharsets.UTF_8).toString()
+          .substring(0, 32) + SUFFIX;
+    }
+
+    boolean matches(MatrixFile.Header header) {
+      return header.getOrder() == order && header.getConstruction() == construction
+          && header.getP() == p && header.getExponent() == exponent;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (!(that instanceof Key)) return false;
+      Key key = (Key) that;
+      return construction == key.construction && p == key.p && exponent == key.exponent
+          && order == key.order;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(construction, p, exponent, order);
+    }
+
+    @Override
+    public String toString() {
+      return construction == null
+          ? String.format("ORDER(%d)", order)
+          : String.format("%s(%d^%d)", construction, p, exponent);
+    }
+  }
+
+  /** A cached matrix and whether it verified as Hadamard. */
+  public static class Entry {
+    private final MatrixView matrix;
+    private final boolean verified;
+
+    Entry(MatrixView matrix, boolean verified) {
+      this.matrix = matrix;
+      this.verified = verified;
+    }
+
+    public MatrixView getMatrix() {
+      return matrix;
+    }
+
+    public boolean isVerified() {
+      return verified;
+    }
+  }
+
+  private final Path directory;
+  private final long maxDiskBytes;
+  private final long maxMemoryBytes;
+  private final LinkedHashMap<Key, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private long memoryBytes;
+  private long lastTouch;
+  private long memoryHits;
+  private long diskHits;
+  private long builds;
+  private long discards;
+
+  public ConstructionCache(Path directory, long maxDiskBytes, long maxMemoryBytes) {
+    this.directory = directory;
+    this.maxDiskBytes = maxDiskBytes;
+    this.maxMemoryBytes = maxMemoryBytes;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Returns Paley construction one or two over GF(p^exponent). */
+  public Entry paley(Construction construction, int p, int exponent) {
+    return get(Key.paley(construction, p, exponent), () -> {
+      GaloisField field = new GaloisField(p, exponent);
+      return construction == Construction.PALEY_ONE
+          ? PaleyMatrix.constructionOne(field) : PaleyMatrix.constructionTwo(field);
+    });
+  }
+
+  /** Returns the matrix OrderPlanner builds for the order. */
+  public Entry order(OrderPlanner planner, int order) {
+    return get(Key.order(order), () -> planner.build(order));
+  }
+
+  /** Returns the cached entry for the key, building and verifying it on a miss. */
+  public synchronized Entry get(Key key, Supplier<MatrixView> builder) {
+    Entry entry = memory.get(key);
+    if (entry != null) {
+      memoryHits++;
+      return entry;
+    }
+    Path file = directory.resolve(key.fileName());
+    entry = read(key, file);
+    if (entry != null) {
+      diskHits++;
+    } else {
+      builds++;
+      MatrixView matrix = builder.get();
+      Preconditions.checkState(matrix.size() == key.getOrder(),
+          "%s built order %s", key, matrix.size());
+      boolean verified = ParallelHadamardVerifier.getDefault().verify(matrix).isHadamard();
+      MatrixFile.write(file, matrix, new MatrixFile.Header(key.getOrder(), key.construction,
+          key.p, key.exponent, verified));
+      touch(file);
+      evictFiles(file);
+      entry = new Entry(PackedMatrix.fromView(matrix), verified);
+    }
+    remember(key, entry);
+    return entry;
+  }
+
+  /** Returns the file's entry, or null after deleting a file that fails its checks. */
+  private Entry read(Key key, Path file) {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try {
+      MappedMatrix mapped = MatrixFile.map(file);
+      Preconditions.checkState(key.matches(mapped.getHeader()), "%s is not %s", file, key);
+      mapped.checkBody();
+      touch(file);
+      return new Entry(PackedMatrix.fromView(mapped), mapped.getHeader().isVerified());
+    } catch (IllegalStateException e) {
+      // A header or checksum check failed; I/O errors propagate.
+      discards++;
+      delete(file);
+      return null;
+    }
+  }
+
+  private void remember(Key key, Entry entry) {
+    memory.put(key, entry);
+    memoryBytes += bytes(entry);
+    Iterator<Map.Entry<Key, Entry>> eldest = memory.entrySet().iterator();
+    while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+      memoryBytes -= bytes(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  private static long bytes(Entry entry) {
+    return (long) entry.getMatrix().size() * MatrixFile.rowBytes(entry.getMatrix().size());
+  }
+
+  // File times may be coarse, so each touch is at least a millisecond after the last.
+  private void touch(Path file) {
+    lastTouch = Math.max(System.currentTimeMillis(), lastTouch + 1);
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(lastTouch));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Deletes the least recently used files, other than keep, until they fit. */
+  private void evictFiles(Path keep) {
+    List<Path> files = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : stream) {
+        files.add(file);
+        total += Files.size(file);
+      }
+      files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+      for (Path file : files) {
+        if (total <= maxDiskBytes) {
+          break;
+        }
+        if (!file.equals(keep)) {
+          total -= Files.size(file);
+          delete(file);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public synchronized long getMemoryHits() {
+    return memoryHits;
+  }
+
+  public synchronized long getDiskHits() {
+    return diskHits;
+  }
+
+  public synchronized long getBuilds() {
+    return builds;
+  }
+
+  /** The number of cached files deleted for failing their integrity checks. */
+  public synchronized long getDiscards() {
+    return discards;
+  }
+}
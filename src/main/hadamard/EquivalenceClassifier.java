@@ -0,0 +1,366 @@
+package hadamard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sorts Hadamard matrices into equivalence classes, where two matrices are equivalent
+ * if one becomes the other by permuting and negating rows and columns.
+ *
+ * The cheap invariant is the 4-profile: for every four rows a, b, c, d, the value
+ * |sum_j a_j b_j c_j d_j|, counted over all such quadruples.  With packed rows each
+ * value is n - 2 popcount(a ^ b ^ c ^ d).  Only matrices whose profiles agree are
+ * compared in full.
+ *
+ * The full check normalizes the first matrix at entry (0, 0) and the second at every
+ * entry (r, c) in turn: rows and columns are negated so that row r and column c hold
+ * only +1, and they are moved first.  Two normalized matrices are equivalent exactly
+ * when plain row and column permutations that fix the first row and column relate
+ * them, which a backtracking search decides by mapping rows one at a time while
+ * keeping the columns of both split into the same classes of equal partial columns.
+ */
+public class EquivalenceClassifier {
+  /** The 4-profile of a matrix: entry k counts quadruples of rows with |sum| = k. */
+  public static class Profile {
+    private final long[] counts;
+
+    Profile(long[] counts) {
+      this.counts = counts;
+    }
+
+    public long count(int value) {
+      return value < counts.length ? counts[value] : 0;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      return that instanceof Profile && Arrays.equals(counts, ((Profile) that).counts);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder("{");
+      for (int value = 0; value < counts.length; value++) {
+        if (counts[value] != 0) {
+          result.append(result.length() > 1 ? ", " : "").append(value).append('=')
+              .append(counts[value]);
+        }
+      }
+      return result.append('}').toString();
+    }
+  }
+
+  /** A matrix with its transpose and profile. */
+  static class Invariants {
+    final PackedMatrix matrix;
+    final PackedMatrix transposed;
+    final Profile profile;
+
+    Invariants(PackedMatrix matrix) {
+      this.matrix = matrix;
+      this.transposed = matrix.transpose();
+      this.profile = profile(matrix);
+    }
+  }
+
+  private final Map<Profile, List<Integer>> classesByProfile = new HashMap<>();
+  private final List<Invariants> representatives = new ArrayList<>();
+  private long fullChecks;
+
+  /** Returns the class of the matrix, adding a new class if it is in none so far. */
+  public synchronized int classify(MatrixView matrix) {
+    Invariants invariants = new Invariants(pack(matrix));
+    List<Integer> candidates =
+        classesByProfile.computeIfAbsent(invariants.profile, profile -> new ArrayList<>());
+    for (int candidate : candidates) {
+      fullChecks++;
+      if (areEquivalent(representatives.get(candidate), invariants)) {
+        return candidate;
+      }
+    }
+    representatives.add(invariants);
+    candidates.add(representatives.size() - 1);
+    return representatives.size() - 1;
+  }
+
+  public synchronized int classCount() {
+    return representatives.size();
+  }
+
+  /** The first matrix seen in a class. */
+  public synchronized MatrixView representative(int equivalenceClass) {
+    return representatives.get(equivalenceClass).matrix;
+  }
+
+  /** The number of full equivalence checks run, one per profile collision. */
+  public synchronized long getFullChecks() {
+    return fullChecks;
+  }
+
+  public static Profile profile(MatrixView matrix) {
+    PackedMatrix packed = pack(matrix);
+    int order = packed.size();
+    int words = PackedMatrix.wordsPerRow(order);
+    long[] counts = new long[order + 1];
+    long[] ab = new long[words];
+    long[] abc = new long[words];
+    for (int a = 0; a < order; a++) {
+      for (int b = a + 1; b < order; b++) {
+        xor(packed.row(a), packed.row(b), ab);
+        for (int c = b + 1; c < order; c++) {
+          xor(ab, packed.row(c), abc);
+          for (int d = c + 1; d < order; d++) {
+            counts[Math.abs(order - 2 * PackedMatrix.numDifferences(abc, packed.row(d)))]++;
+          }
+        }
+      }
+    }
+    return new Profile(counts);
+  }
+
+  /**
+   * Returns, for each row r, the profile of the quadruples {pivot, r, c, d} over all
+   * pairs c < d of the other rows.  An equivalence taking pivot to pivot' takes r to a
+   * row with the same pivot profile.
+   */
+  static Profile[] pivotProfiles(PackedMatrix packed, int pivot) {
+    int order = packed.size();
+    int words = PackedMatrix.wordsPerRow(order);
+    Profile[] profiles = new Profile[order];
+    long[] pr = new long[words];
+    long[] prc = new long[words];
+    for (int r = 0; r < order; r++) {
+      long[] counts = new long[order + 1];
+      xor(packed.row(pivot), packed.row(r), pr);
+      for (int c = 0; c < order; c++) {
+        if (c == pivot || c == r) {
+          continue;
+        }
+        xor(pr, packed.row(c), prc);
+        for (int d = c + 1; d < order; d++) {
+          if (d != pivot && d != r) {
+            counts[Math.abs(order - 2 * PackedMatrix.numDifferences(prc, packed.row(d)))]++;
+          }
+        }
+      }
+      profiles[r] = new Profile(counts);
+    }
+    return profiles;
+  }
+
+  private static void xor(long[] a, long[] b, long[] result) {
+    for (int word = 0; word < result.length; word++) {
+      result[word] = a[word] ^ b[word];
+    }
+  }
+
+  /** Returns whether the matrices are Hadamard equivalent. */
+  public static boolean areEquivalent(MatrixView first, MatrixView second) {
+    if (first.size() != second.size()) {
+      return false;
+    }
+    return areEquivalent(new Invariants(pack(first)), new Invariants(pack(second)));
+  }
+
+  /**
+   * Only pivots (r, c) whose pivot profiles match those of (0, 0) in the first matrix
+   * are tried, and the profiles then colour the rows and columns that may correspond.
+   */
+  static boolean areEquivalent(Invariants first, Invariants second) {
+    if (!first.profile.equals(second.profile)) {
+      return false;
+    }
+    int order = first.matrix.size();
+    Profile[] firstRows = pivotProfiles(first.matrix, 0);
+    Profile[] firstColumns = pivotProfiles(first.transposed, 0);
+    boolean[][] normalizedFirst = normalize(first.matrix, 0, 0);
+    List<int[][]> columnColourings = new ArrayList<>();
+    for (int column = 0; column < order; column++) {
+      columnColourings.add(
+          colour(firstColumns, pivotProfiles(second.transposed, column), column));
+    }
+    for (int row = 0; row < order; row++) {
+      int[][] rowColours = colour(firstRows, pivotProfiles(second.matrix, row), row);
+      if (rowColours == null) {
+        continue;
+      }
+      for (int column = 0; column < order; column++) {
+        int[][] columnColours = columnColourings.get(column);
+        if (columnColours != null
+            && new PermutationSearch(normalizedFirst, normalize(second.matrix, row, column),
+                rowColours[0], rowColours[1], columnColours[0], columnColours[1],
+                columnColours[2][0]).run()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Numbers the distinct profiles, returning the colours of the first entries, of the
+   * second entries with the pivot moved first, and the number of colours; or null if
+   * the pivots differ in colour or some colour is not equally common in both.
+   */
+  private static int[][] colour(Profile[] first, Profile[] second, int pivot) {
+    if (!first[0].equals(second[pivot])) {
+      return null;
+    }
+    Map<Profile, Integer> colours = new HashMap<>();
+    int[] firstColours = new int[first.length];
+    for (int i = 0; i < first.length; i++) {
+      firstColours[i] = colours.computeIfAbsent(first[i], profile -> colours.size());
+    }
+    int[] balance = new int[colours.size()];
+    for (int colour : firstColours) {
+      balance[colour]++;
+    }
+    int[] secondColours = new int[second.length];
+    for (int i = 0; i < second.length; i++) {
+      Integer colour = colours.get(second[i]);
+      if (colour == null || --balance[colour] < 0) {
+        return null;
+      }
+      secondColours[i] = colour;
+    }
+    return new int[][] {firstColours, moveFirst(secondColours, pivot), {colours.size()}};
+  }
+
+  /** Reorders values the way normalize moves the pivot first. */
+  private static int[] moveFirst(int[] values, int pivot) {
+    int[] result = new int[values.length];
+    result[0] = values[pivot];
+    System.arraycopy(values, 0, result, 1, pivot);
+    System.arraycopy(values, pivot + 1, result, pivot + 1, values.length - pivot - 1);
+    return result;
+  }
+
+  /**
+   * Negates rows and columns so that the given row and column hold only +1, moves them
+   * first, and returns true for each +1 entry.
+   */
+  static boolean[][] normalize(MatrixView matrix, int pivotRow, int pivotColumn) {
+    int order = matrix.size();
+    boolean[][] result = new boolean[order][order];
+    for (int row = 0; row < order; row++) {
+      int rowSign = matrix.at(row, pivotColumn);
+      int targetRow = row == pivotRow ? 0 : row < pivotRow ? row + 1 : row;
+      for (int column = 0; column < order; column++) {
+        int sign = rowSign * matrix.at(pivotRow, column) * matrix.at(pivotRow, pivotColumn);
+        int targetColumn =
+            column == pivotColumn ? 0 : column < pivotColumn ? column + 1 : column;
+        result[targetRow][targetColumn] = matrix.at(row, column) * sign == 1;
+      }
+    }
+    return result;
+  }
+
+  /** Decides whether row and column permutations fixing index 0 turn one into the other. */
+  static class PermutationSearch {
+    private final boolean[][] first;
+    private final boolean[][] second;
+    private final int[] firstRowColours;
+    private final int[] secondRowColours;
+    private final int order;
+    private final boolean[] used;
+    // Column classes after each depth: columns in the same class agree on every mapped
+    // row, and class ids mean the same partial column in both matrices.
+    private final int[][] firstClasses;
+    private final int[][] secondClasses;
+    private final int[] classCounts;
+
+    PermutationSearch(boolean[][] first, boolean[][] second, int[] firstRowColours,
+        int[] secondRowColours, int[] firstColumnColours, int[] secondColumnColours,
+        int columnColours) {
+      this.first = first;
+      this.second = second;
+      this.firstRowColours = firstRowColours;
+      this.secondRowColours = secondRowColours;
+      this.order = first.length;
+      this.used = new boolean[order];
+      this.firstClasses = new int[order + 1][];
+      this.secondClasses = new int[order + 1][];
+      this.classCounts = new int[order + 1];
+      for (int depth = 2; depth <= order; depth++) {
+        firstClasses[depth] = new int[order];
+        secondClasses[depth] = new int[order];
+      }
+      // Row 0 is all +1 in both, so mapping it splits no class.
+      firstClasses[1] = firstColumnColours;
+      secondClasses[1] = secondColumnColours;
+      classCounts[1] = columnColours;
+    }
+
+    boolean run() {
+      used[0] = true;
+      return map(1);
+    }
+
+    /** Maps first's row depth to some unused row of second. */
+    private boolean map(int depth) {
+      if (depth == order) {
+        return true;
+      }
+      for (int candidate = 1; candidate < order; candidate++) {
+        if (!used[candidate] && secondRowColours[candidate] == firstRowColours[depth]
+            && refine(depth, first[depth], second[candidate])) {
+          used[candidate] = true;
+          if (map(depth + 1)) {
+            return true;
+          }
+          used[candidate] = false;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Splits every column class by the new rows' entries, returning false if the two
+     * matrices' classes stop matching in size.
+     */
+    private boolean refine(int depth, boolean[] firstRow, boolean[] secondRow) {
+      int classes = classCounts[depth];
+      int[] balance = new int[2 * classes];
+      int[] previousFirst = firstClasses[depth];
+      int[] previousSecond = secondClasses[depth];
+      for (int column = 0; column < order; column++) {
+        balance[2 * previousFirst[column] + (firstRow[column] ? 1 : 0)]++;
+        balance[2 * previousSecond[column] + (secondRow[column] ? 1 : 0)]--;
+      }
+      for (int count : balance) {
+        if (count != 0) {
+          return false;
+        }
+      }
+      int[] renumber = new int[2 * classes];
+      Arrays.fill(renumber, -1);
+      int next = 0;
+      int[] nextFirst = firstClasses[depth + 1];
+      int[] nextSecond = secondClasses[depth + 1];
+      for (int column = 0; column < order; column++) {
+        int key = 2 * previousFirst[column] + (firstRow[column] ? 1 : 0);
+        if (renumber[key] < 0) {
+          renumber[key] = next++;
+        }
+        nextFirst[column] = renumber[key];
+      }
+      for (int column = 0; column < order; column++) {
+        nextSecond[column] = renumber[2 * previousSecond[column] + (secondRow[column] ? 1 : 0)];
+      }
+      classCounts[depth + 1] = next;
+      return true;
+    }
+  }
+
+  private static PackedMatrix pack(MatrixView matrix) {
+    return matrix instanceof PackedMatrix ? (PackedMatrix) matrix : PackedMatrix.fromView(matrix);
+  }
+}
@@ -1,40 +1,181 @@
 package hadamard;
 
-import cc.redberry.rings.poly.FiniteField;
-import cc.redberry.rings.poly.univar.UnivariatePolynomialZp64;
+import com.google.common.base.Preconditions;
+import com.google.common.math.IntMath;
 
 import java.util.*;
 
-import static cc.redberry.rings.Rings.GF;
-
-/** Galois field based on p^k where k > 1. */
+/**
+ * Galois field based on p^k, taken modulo the first primitive polynomial
+ * PrimitivePolynomials finds.
+ *
+ * Besides the Polynomial form of each element, elements are encoded as integers in
+ * [0, q) whose base-p digits are the coefficients, lowest degree in the lowest digit.
+ * This is also the order of getFieldValues(), and for k = 1 it is the usual integers
+ * mod p.  Encoded elements are subtracted chunk by chunk of max(1, k / 2) digits, one
+ * table lookup per chunk: two lookups for even k and three for odd k.  The table holds
+ * p^(2 max(1, k / 2)) entries, which is q for even k and q / p for odd k > 1, so it
+ * never exceeds q.  Elements are multiplied through log/antilog tables.
+ *
+ * Since x is primitive, walking its powers visits every unit once; the even powers are
+ * exactly the nonzero squares.  Every table has at most q entries and is built in O(q)
+ * steps.
+ */
 public class GaloisField {
   private final int p;
   private final int exponent;
   private final int q;
-  private final FiniteField<UnivariatePolynomialZp64> gf;
-  private final Polynomial divisor;
-  private final List<Polynomial> fieldValues;
+  // Coefficients below the leading term of the monic primitive polynomial the field
+  // is taken modulo.
+  private final int[] modulus;
+  // p^(digits per chunk), and the number of chunks covering the k digits.
+  private final int chunkSize;
+  private final int chunks;
+  // subtractChunk[a * chunkSize + b] is the digit-wise difference a - b of two chunks.
+  private final int[] subtractChunk;
+  // antilog[i] is x^i for i in [0, q - 1); log is its inverse on the units.
+  private final int[] antilog;
+  private final int[] log;
+  // 0 for zero, 1 for a nonzero square, -1 otherwise.
+  private final byte[] quadraticCharacter;
+
+  // Polynomial forms, only built on request.
+  private Polynomial divisor;
+  private List<Polynomial> fieldValues;
 
   public GaloisField(int p, int exponent) {
     this.p = p;
     this.exponent = exponent;
-    this.q = (int) Math.pow(p, exponent);
-    // I'm not sure the best way to determine the minimum irreducible polynomial,
-    // so we use rings to get it.
-    this.gf = GF(p, exponent);
-    this.divisor = Polynomial.parse(gf.getMinimalPolynomial().toString());
-    this.fieldValues = generateFieldValues();
+    this.q = IntMath.checkedPow(p, exponent);
+    this.modulus = PrimitivePolynomials.find(p, exponent);
+    int chunkDigits = Math.max(1, exponent / 2);
+    this.chunkSize = IntMath.pow(p, chunkDigits);
+    this.chunks = (exponent + chunkDigits - 1) / chunkDigits;
+    // Prime fields subtract directly rather than through a p x p table.
+    this.subtractChunk = exponent == 1 ? null : generateSubtractionTable(chunkSize);
+    this.antilog = new int[q - 1];
+    this.log = new int[q];
+    this.quadraticCharacter = new byte[q];
+    walkPowersOfX();
   }
 
-  public List<Polynomial> getFieldValues() {
-    return fieldValues;
+  public int getOrder() {
+    return q;
+  }
+
+  public int getCharacteristic() {
+    return p;
+  }
+
+  /** Returns the encoded difference a - b of two encoded elements. */
+  public int subtract(int a, int b) {
+    if (exponent == 1) {
+      return a >= b ? a - b : a - b + p;
+    }
+    int result = 0;
+    for (int chunk = 0, place = 1; chunk < chunks; chunk++, place *= chunkSize) {
+      result += subtractChunk[(a % chunkSize) * chunkSize + b % chunkSize] * place;
+      a /= chunkSize;
+      b /= chunkSize;
+    }
+    return result;
+  }
+
+  /** The number of entries in the subtraction table, 0 for prime fields. */
+  int subtractionTableSize() {
+    return subtractChunk == null ? 0 : subtractChunk.length;
+  }
+
+  /** Returns 0 for zero, 1 if the encoded element is a nonzero square, and -1 otherwise. */
+  public int quadraticCharacter(int element) {
+    return quadraticCharacter[element];
+  }
+
+  public int encode(Polynomial polynomial) {
+    int result = 0;
+    for (int i = exponent - 1; i >= 0; i--) {
+      result = result * p + Math.floorMod(polynomial.getCoefficient(i), p);
+    }
+    return result;
+  }
+
+  /** Returns the encoded product of two encoded elements. */
+  public int multiply(int a, int b) {
+    if (a == 0 || b == 0) {
+      return 0;
+    }
+    int logSum = log[a] + log[b];
+    return antilog[logSum >= q - 1 ? logSum - (q - 1) : logSum];
+  }
+
+  /** Returns x^i for the primitive element x, where 0 <= i < q - 1. */
+  public int power(int i) {
+    return antilog[i];
   }
 
-  private List<Polynomial> generateFieldValues() {
-    Iterator<UnivariatePolynomialZp64> it = gf.iterator();
-    List<Polynomial> fieldPolynomials = new ArrayList<>();
-    while (it.hasNext()) {
+  /** Returns i in [0, q - 1) with x^i equal to the nonzero encoded element. */
+  public int log(int element) {
+    return log[element];
+  }
+
+  /** Returns the primitive polynomial the field is taken modulo. */
+  public synchronized Polynomial getDivisor() {
+    if (divisor == null) {
+      int[] coefficients = Arrays.copyOf(modulus, exponent + 1);
+      coefficients[exponent] = 1;
+      divisor = Polynomial.fromCoefficients(coefficients);
+    }
+    return divisor;
+  }
+
+  public Polynomial decode(int element) {
+    int[] coefficients = new int[exponent];
+    for (int i = 0; i < exponent; i++, element /= p) {
+      coefficients[i] = element % p;
+    }
+    return Polynomial.fromCoefficients(coefficients);
+  }
+
+  private int[] generateSubtractionTable(int size) {
+    int[] table = new int[size * size];
+    for (int a = 0; a < size; a++) {
+      for (int b = 0; b < size; b++) {
+        int difference = 0;
+        for (int place = 1, aDigits = a, bDigits = b; aDigits > 0 || bDigits > 0;
+             place *= p, aDigits /= p, bDigits /= p) {
+          difference += Math.floorMod(aDigits % p - bDigits % p, p) * place;
+        }
+        table[a * size + b] = difference;
+      }
+    }
+    return table;
+  }
+
+  /** Fills antilog, log and quadraticCharacter from the successive powers of x. */
+  private void walkPowersOfX() {
+    // Multiplying by x shifts the digits up; a digit c shifted out as c * x^k is
+    // replaced by -c * (modulus[k-1] x^(k-1) + ... + modulus[0]).
+    int topPlace = q / p;
+    int[] shiftedOut = new int[p];
+    for (int c = 0; c < p; c++) {
+      for (int i = exponent - 1; i >= 0; i--) {
+        shiftedOut[c] = shiftedOut[c] * p + (int) ((long) c * modulus[i] % p);
+      }
+    }
+    quadraticCharacter[0] = 0;
+    int element = 1;
+    for (int i = 0; i < q - 1; i++) {
+      antilog[i] = element;
+      log[element] = i;
+      // In characteristic 2, q - 1 is odd and every unit is a square.
+      quadraticCharacter[element] = (byte) ((i & 1) == 0 || p == 2 ? 1 : -1);
+      element = subtract((element % topPlace) * p, shiftedOut[element / topPlace]);
+    }
+    Preconditions.checkState(element == 1, "x is not primitive modulo %s", getDivisor());
+  }
+
+  public synchronized List<Polynomial> getFieldValues() {
+    if (fieldValues == null) {
       // The elements of GF(p^k) are derived by using GF(p) as all possible combinations
       // of coefficients.  For example, for GF(3^2), GF(3) = 0, 1, 2, so the elements of
       // GF(p^k) are 0*x+0, 0*x+1, 0*x+2, 1*x+0, 1*x+1, 1*x+2, 2*x+0, 2*x+1, 2*x+2
@@ -42,19 +183,19 @@ public class GaloisField {
       // If you use a base-3 notation (because GF(3) has three elements), these can be written as
       //                 0,     1,     2,   3,       4,     5,   6,       7,        8
       // where each power of 3 is a coefficient (a or b) of a*x + b.
-      // We use rings to enumerate these, but we could do it ourselves.
-      fieldPolynomials.add(Polynomial.parse(it.next().toString()));
+      List<Polynomial> fieldPolynomials = new ArrayList<>(q);
+      for (int element = 0; element < q; element++) {
+        fieldPolynomials.add(decode(element));
+      }
+      fieldValues = fieldPolynomials;
     }
-    return fieldPolynomials;
+    return fieldValues;
   }
 
   public Set<Polynomial> getQuadraticResidues() {
     Set<Polynomial> galoisFieldQuadraticResidues = new HashSet<>();
-    for (Polynomial fieldPolynomial : fieldValues) {
-      Polynomial squaredMod = fieldPolynomial.square().modulo(divisor).coefficientModulo(p);
-      if (!squaredMod.isZero() && fieldValues.contains(squaredMod)) {
-        galoisFieldQuadraticResidues.add(squaredMod);
-      }
+    for (int i = 0; i < q - 1; i += p == 2 ? 1 : 2) {
+      galoisFieldQuadraticResidues.add(decode(antilog[i]));
     }
     return galoisFieldQuadraticResidues;
   }
@@ -0,0 +1,167 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The Hadamard code of a Hadamard matrix H of order n: message m in [0, n) is row m of H
+ * and message n + m is its negation, so 2n messages of n bits with minimum distance
+ * n / 2.  Words use the PackedMatrix layout, where a set bit means -1.
+ *
+ * Decoding picks the codeword nearest the received word, which is the row with the
+ * largest |correlation| n - 2 distance(row, word), negated if the correlation is
+ * negative; ties go to the lowest row.  Fewer than n / 4 flipped bits always decode
+ * correctly.  Sylvester matrices get every correlation at once from the fast
+ * Walsh-Hadamard transform of the word as +1/-1 values, and any other matrix correlates
+ * packed rows with popcount.
+ *
+ * Usage: HadamardCode [order [words [threads]]]
+ */
+public class HadamardCode {
+  public static void main(String args[]) {
+    int order = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+    int words = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+    int threads = args.length > 2
+        ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    OrderPlanner planner = new OrderPlanner();
+    HadamardCode code = new HadamardCode(planner.build(order));
+
+    Random random = new Random(order);
+    int[] messages = new int[words];
+    long[][] received = new long[words][];
+    for (int word = 0; word < words; word++) {
+      messages[word] = random.nextInt(code.messageCount());
+      received[word] = code.encode(messages[word]);
+      for (int flip = 0; flip < (order - 1) / 4; flip++) {
+        int column = random.nextInt(order);
+        received[word][column >>> 6] ^= 1L << column;
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long start = System.nanoTime();
+    int[] decoded = code.decodeAll(received, pool);
+    long nanos = System.nanoTime() - start;
+    int errors = 0;
+    for (int word = 0; word < words; word++) {
+      if (decoded[word] != messages[word]) {
+        errors++;
+      }
+    }
+    System.out.printf("order %d %s: %d words in %.1f ms on %d threads, %.0f words/sec, %d errors\n",
+        order, planner.constructionFor(order), words, nanos / 1e6, threads,
+        words / (nanos / 1e9), errors);
+    pool.shutdown();
+  }
+
+  private final int order;
+  private final PackedMatrix packed;
+  private final boolean fast;
+
+  /** The matrix must be Hadamard. */
+  public HadamardCode(MatrixView matrix) {
+    this.order = matrix.size();
+    this.packed = PackedMatrix.fromView(matrix);
+    this.fast = matrix instanceof SylvesterMatrix;
+    Preconditions.checkState(fast || packed.isHadamard(), "Matrix is not Hadamard");
+  }
+
+  /** The number of bits in a codeword. */
+  public int length() {
+    return order;
+  }
+
+  public int messageCount() {
+    return 2 * order;
+  }
+
+  /** Whether decoding uses the fast Walsh-Hadamard transform. */
+  public boolean isFast() {
+    return fast;
+  }
+
+  public long[] encode(int message) {
+    Preconditions.checkState(message >= 0 && message < messageCount(),
+        "Message %s is not in [0, %s)", message, messageCount());
+    long[] word = packed.row(message % order).clone();
+    if (message >= order) {
+      for (int i = 0; i < word.length; i++) {
+        word[i] = ~word[i];
+      }
+      word[word.length - 1] &= PackedMatrix.lastWordMask(order);
+    }
+    return word;
+  }
+
+  /**
+   * Returns the message of the codeword nearest to the received word, ignoring any bits
+   * past the order in its last word.
+   */
+  public int decode(long[] received) {
+    Preconditions.checkState(received.length == PackedMatrix.wordsPerRow(order),
+        "Received %s words, not %s", received.length, PackedMatrix.wordsPerRow(order));
+    return fast ? decodeFast(received, new int[order]) : decodePacked(received);
+  }
+
+  public int[] decodeAll(long[][] received) {
+    int[] messages = new int[received.length];
+    decodeRange(received, messages, 0, received.length);
+    return messages;
+  }
+
+  /** Decodes the words with ranges of them spread across the pool. */
+  public int[] decodeAll(long[][] received, ForkJoinPool pool) {
+    int[] messages = new int[received.length];
+    int grain = Math.max(1, (1 << 16) / order);
+    pool.invoke(new WalshHadamard.Range(0, received.length, grain,
+        (start, end) -> decodeRange(received, messages, start, end)));
+    return messages;
+  }
+
+  private void decodeRange(long[][] received, int[] messages, int start, int end) {
+    int[] values = fast ? new int[order] : null;
+    for (int word = start; word < end; word++) {
+      Preconditions.checkState(received[word].length == PackedMatrix.wordsPerRow(order),
+          "Word %s has %s words, not %s", word, received[word].length,
+          PackedMatrix.wordsPerRow(order));
+      messages[word] = fast ? decodeFast(received[word], values) : decodePacked(received[word]);
+    }
+  }
+
+  /** values is scratch space of order entries. */
+  private int decodeFast(long[] received, int[] values) {
+    for (int column = 0; column < order; column++) {
+      values[column] = (received[column >>> 6] & (1L << column)) == 0 ? 1 : -1;
+    }
+    WalshHadamard.transform(values);
+    int best = 0;
+    for (int row = 1; row < order; row++) {
+      if (Math.abs(values[row]) > Math.abs(values[best])) {
+        best = row;
+      }
+    }
+    return values[best] >= 0 ? best : order + best;
+  }
+
+  private int decodePacked(long[] received) {
+    int last = received.length - 1;
+    long mask = PackedMatrix.lastWordMask(order);
+    if ((received[last] & ~mask) != 0) {
+      // Bits past the order would count as differences from every row.
+      received = received.clone();
+      received[last] &= mask;
+    }
+    int best = 0;
+    int bestCorrelation = 0;
+    for (int row = 0; row < order; row++) {
+      int correlation = order - 2 * PackedMatrix.numDifferences(packed.row(row), received);
+      if (Math.abs(correlation) > Math.abs(bestCorrelation) || row == 0) {
+        best = row;
+        bestCorrelation = correlation;
+      }
+    }
+    return bestCorrelation >= 0 ? best : order + best;
+  }
+}
@@ -0,0 +1,287 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multiplies vectors by a +1/-1 matrix in place.
+ *
+ * Sylvester matrices use the O(n log n) WalshHadamard transform.  Any other matrix is
+ * packed once, and each product entry is the vector's total minus twice the sum of the
+ * entries under the row's set (-1) bits.  A band of BAND packed rows stays in cache
+ * while every vector of a batch streams past it, and bands are what the parallel
+ * variants spread across the pool.  A MappedMatrix is not packed: each band's rows are
+ * read out of the mapping as it is reached, so only BAND rows per task are on the heap.
+ */
+public class HadamardTransform {
+  // Packed rows per band of the dense product.
+  static final int BAND = 64;
+
+  private final int order;
+  // At most one is set; neither when the matrix is Sylvester.
+  private final PackedMatrix packed;
+  private final MappedMatrix mapped;
+
+  public static HadamardTransform of(MatrixView matrix) {
+    if (matrix instanceof SylvesterMatrix) {
+      return new HadamardTransform(matrix.size(), null, null);
+    } else if (matrix instanceof MappedMatrix) {
+      return new HadamardTransform(matrix.size(), null, (MappedMatrix) matrix);
+    }
+    return new HadamardTransform(matrix.size(), PackedMatrix.fromView(matrix), null);
+  }
+
+  private HadamardTransform(int order, PackedMatrix packed, MappedMatrix mapped) {
+    this.order = order;
+    this.packed = packed;
+    this.mapped = mapped;
+  }
+
+  public int size() {
+    return order;
+  }
+
+  /** Whether vectors go through the fast Walsh-Hadamard transform. */
+  public boolean isFast() {
+    return packed == null && mapped == null;
+  }
+
+  public void apply(int[] vector) {
+    applyAll(new int[][] {vector});
+  }
+
+  public void apply(long[] vector) {
+    applyAll(new long[][] {vector});
+  }
+
+  public void apply(double[] vector) {
+    applyAll(new double[][] {vector});
+  }
+
+  public void applyAll(int[][] vectors) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors);
+      return;
+    }
+    int[][] results = new int[vectors.length][order];
+    multiply(vectors, totals(vectors), results, 0, order);
+    copyBack(results, vectors);
+  }
+
+  public void applyAll(long[][] vectors) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors);
+      return;
+    }
+    long[][] results = new long[vectors.length][order];
+    multiply(vectors, totals(vectors), results, 0, order);
+    copyBack(results, vectors);
+  }
+
+  public void applyAll(double[][] vectors) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors);
+      return;
+    }
+    double[][] results = new double[vectors.length][order];
+    multiply(vectors, totals(vectors), results, 0, order);
+    copyBack(results, vectors);
+  }
+
+  /** Applies the matrix to every vector, spreading vectors or row bands across the pool. */
+  public void applyAll(int[][] vectors, ForkJoinPool pool) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors, pool);
+      return;
+    }
+    int[][] results = new int[vectors.length][order];
+    int[] totals = totals(vectors);
+    pool.invoke(new WalshHadamard.Range(0, bands(), 1,
+        (start, end) -> multiply(vectors, totals, results, start * BAND,
+            Math.min(order, end * BAND))));
+    copyBack(results, vectors);
+  }
+
+  public void applyAll(long[][] vectors, ForkJoinPool pool) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors, pool);
+      return;
+    }
+    long[][] results = new long[vectors.length][order];
+    long[] totals = totals(vectors);
+    pool.invoke(new WalshHadamard.Range(0, bands(), 1,
+        (start, end) -> multiply(vectors, totals, results, start * BAND,
+            Math.min(order, end * BAND))));
+    copyBack(results, vectors);
+  }
+
+  public void applyAll(double[][] vectors, ForkJoinPool pool) {
+    checkLengths(vectors.length, i -> vectors[i].length);
+    if (isFast()) {
+      WalshHadamard.transformAll(vectors, pool);
+      return;
+    }
+    double[][] results = new double[vectors.length][order];
+    double[] totals = totals(vectors);
+    pool.invoke(new WalshHadamard.Range(0, bands(), 1,
+        (start, end) -> multiply(vectors, totals, results, start * BAND,
+            Math.min(order, end * BAND))));
+    copyBack(results, vectors);
+  }
+
+  private interface Lengths {
+    int length(int vector);
+  }
+
+  private void checkLengths(int vectors, Lengths lengths) {
+    for (int vector = 0; vector < vectors; vector++) {
+      Preconditions.checkState(lengths.length(vector) == order,
+          "Vector %s has length %s, not %s", vector, lengths.length(vector), order);
+    }
+  }
+
+  private int bands() {
+    return (order + BAND - 1) / BAND;
+  }
+
+  private static int[] totals(int[][] vectors) {
+    int[] totals = new int[vectors.length];
+    for (int vector = 0; vector < vectors.length; vector++) {
+      for (int value : vectors[vector]) {
+        totals[vector] += value;
+      }
+    }
+    return totals;
+  }
+
+  private static long[] totals(long[][] vectors) {
+    long[] totals = new long[vectors.length];
+    for (int vector = 0; vector < vectors.length; vector++) {
+      for (long value : vectors[vector]) {
+        totals[vector] += value;
+      }
+    }
+    return totals;
+  }
+
+  private static double[] totals(double[][] vectors) {
+    double[] totals = new double[vectors.length];
+    for (int vector = 0; vector < vectors.length; vector++) {
+      for (double value : vectors[vector]) {
+        totals[vector] += value;
+      }
+    }
+    return totals;
+  }
+
+  /** Fills band with packed rows [startBand, endBand), reusing its arrays when mapped. */
+  private void loadBand(long[][] band, int startBand, int endBand) {
+    for (int row = startBand; row < endBand; row++) {
+      if (mapped == null) {
+        band[row - startBand] = packed.row(row);
+      } else {
+        if (band[row - startBand] == null) {
+          band[row - startBand] = new long[PackedMatrix.wordsPerRow(order)];
+        }
+        long[] words = band[row - startBand];
+        mapped.packRow(row, words);
+        // Stray padding bits in the file would index past the vectors.
+        words[words.length - 1] &= PackedMatrix.lastWordMask(order);
+      }
+    }
+  }
+
+  /** Computes result rows [startRow, endRow) of every vector, one band at a time. */
+  private void multiply(int[][] vectors, int[] totals, int[][] results, int startRow,
+      int endRow) {
+    long[][] band = new long[BAND][];
+    for (int startBand = startRow; startBand < endRow; startBand += BAND) {
+      int endBand = Math.min(endRow, startBand + BAND);
+      loadBand(band, startBand, endBand);
+      for (int vector = 0; vector < vectors.length; vector++) {
+        int[] values = vectors[vector];
+        for (int row = startBand; row < endBand; row++) {
+          long[] words = band[row - startBand];
+          int negative = 0;
+          for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+              negative += values[base + Long.numberOfTrailingZeros(bits)];
+            }
+          }
+          results[vector][row] = totals[vector] - 2 * negative;
+        }
+      }
+    }
+  }
+
+  private void multiply(long[][] vectors, long[] totals, long[][] results, int startRow,
+      int endRow) {
+    long[][] band = new long[BAND][];
+    for (int startBand = startRow; startBand < endRow; startBand += BAND) {
+      int endBand = Math.min(endRow, startBand + BAND);
+      loadBand(band, startBand, endBand);
+      for (int vector = 0; vector < vectors.length; vector++) {
+        long[] values = vectors[vector];
+        for (int row = startBand; row < endBand; row++) {
+          long[] words = band[row - startBand];
+          long negative = 0;
+          for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+              negative += values[base + Long.numberOfTrailingZeros(bits)];
+            }
+          }
+          results[vector][row] = totals[vector] - 2 * negative;
+        }
+      }
+    }
+  }
+
+  private void multiply(double[][] vectors, double[] totals, double[][] results, int startRow,
+      int endRow) {
+    long[][] band = new long[BAND][];
+    for (int startBand = startRow; startBand < endRow; startBand += BAND) {
+      int endBand = Math.min(endRow, startBand + BAND);
+      loadBand(band, startBand, endBand);
+      for (int vector = 0; vector < vectors.length; vector++) {
+        double[] values = vectors[vector];
+        for (int row = startBand; row < endBand; row++) {
+          long[] words = band[row - startBand];
+          double negative = 0;
+          for (int word = 0; word < words.length; word++) {
+            int base = word << 6;
+            for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+              negative += values[base + Long.numberOfTrailingZeros(bits)];
+            }
+          }
+          results[vector][row] = totals[vector] - 2 * negative;
+        }
+      }
+    }
+  }
+
+  private static void copyBack(int[][] results, int[][] vectors) {
+    for (int vector = 0; vector < vectors.length; vector++) {
+      System.arraycopy(results[vector], 0, vectors[vector], 0, results[vector].length);
+    }
+  }
+
+  private static void copyBack(long[][] results, long[][] vectors) {
+    for (int vector = 0; vector < vectors.length; vector++) {
+      System.arraycopy(results[vector], 0, vectors[vector], 0, results[vector].length);
+    }
+  }
+
+  private static void copyBack(double[][] results, double[][] vectors) {
+    for (int vector = 0; vector < vectors.length; vector++) {
+      System.arraycopy(results[vector], 0, vectors[vector], 0, results[vector].length);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package hadamard;
+
+/**
+ * Checks that a matrix is Hadamard by testing row pairs for orthogonality directly,
+ * rather than forming H * H^T.
+ *
+ * Pairs are visited as (0, 1), (0, 2), (1, 2), (0, 3), ... so each row is packed just
+ * before its first comparison and a matrix that fails early is only packed that far.
+ * The first failing pair is reported.  Nothing is allocated per pair.  A PackedMatrix's
+ * rows are used as they are, and a MappedMatrix's rows are compared in the mapping, so
+ * neither is copied.
+ *
+ * Circulant and bordered-circulant matrices are recognized and handed to
+ * CirculantVerifier, which reports the same result without checking every pair.
+ */
+public class HadamardVerifier {
+  public static class Result {
+    static final Result HADAMARD = new Result(-1, -1, 0);
+
+    private final int firstRow;
+    private final int secondRow;
+    private final int dotProduct;
+
+    private Result(int firstRow, int secondRow, int dotProduct) {
+      this.firstRow = firstRow;
+      this.secondRow = secondRow;
+      this.dotProduct = dotProduct;
+    }
+
+    static Result notOrthogonal(int firstRow, int secondRow, int dotProduct) {
+      return new Result(firstRow, secondRow, dotProduct);
+    }
+
+    /** The row holds an entry that is neither +1 nor -1. */
+    static Result invalidEntry(int row) {
+      return new Result(row, -1, 0);
+    }
+
+    public boolean isHadamard() {
+      return firstRow == -1;
+    }
+
+    public boolean hasInvalidEntry() {
+      return firstRow != -1 && secondRow == -1;
+    }
+
+    /** The lower-numbered row of the failing pair, or the row with an invalid entry. */
+    public int getFirstRow() {
+      return firstRow;
+    }
+
+    public int getSecondRow() {
+      return secondRow;
+    }
+
+    public int getDotProduct() {
+      return dotProduct;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (!(that instanceof Result)) return false;
+      Result result = (Result) that;
+      return firstRow == result.firstRow && secondRow == result.secondRow
+          && dotProduct == result.dotProduct;
+    }
+
+    @Override
+    public int hashCode() {
+      return (firstRow * 31 + secondRow) * 31 + dotProduct;
+    }
+
+    @Override
+    public String toString() {
+      if (isHadamard()) {
+        return "Hadamard";
+      } else if (hasInvalidEntry()) {
+        return String.format("Row %d has an entry other than +1/-1", firstRow);
+      }
+      return String.format("Rows %d and %d have dot product %d", firstRow, secondRow, dotProduct);
+    }
+  }
+
+  public static Result verify(MatrixView matrix) {
+    Result circulant = CirculantVerifier.verify(matrix);
+    if (circulant != null) {
+      return circulant;
+    }
+    return verifyLeadingRows(matrix, rowsFor(matrix), matrix.size());
+  }
+
+  /** Room for the packed rows, or null for a MappedMatrix, which is never packed. */
+  static long[][] rowsFor(MatrixView matrix) {
+    return matrix instanceof MappedMatrix ? null : new long[matrix.size()][];
+  }
+
+  /**
+   * Checks every pair among the first limit rows, filling rows with their packed words.
+   * Any failure found here precedes, in visiting order, every pair involving a later row.
+   */
+  static Result verifyLeadingRows(MatrixView matrix, long[][] rows, int limit) {
+    int order = matrix.size();
+    int words = PackedMatrix.wordsPerRow(order);
+    if (matrix instanceof MappedMatrix) {
+      return verifyLeadingRows((MappedMatrix) matrix, limit);
+    }
+    PackedMatrix packed = matrix instanceof PackedMatrix ? (PackedMatrix) matrix : null;
+    for (int rowB = 0; rowB < limit; rowB++) {
+      long[] wordsB;
+      if (packed != null) {
+        wordsB = packed.row(rowB);
+      } else {
+        wordsB = new long[words];
+        if (!matrix.packRow(rowB, wordsB)) {
+          return Result.invalidEntry(rowB);
+        }
+      }
+      rows[rowB] = wordsB;
+      for (int rowA = 0; rowA < rowB; rowA++) {
+        int differences = PackedMatrix.numDifferences(rows[rowA], wordsB);
+        if (2 * differences != order) {
+          return Result.notOrthogonal(rowA, rowB, order - 2 * differences);
+        }
+      }
+    }
+    return Result.HADAMARD;
+  }
+
+  private static Result verifyLeadingRows(MappedMatrix matrix, int limit) {
+    int order = matrix.size();
+    for (int rowB = 0; rowB < limit; rowB++) {
+      for (int rowA = 0; rowA < rowB; rowA++) {
+        int differences = matrix.numDifferences(rowA, rowB);
+        if (2 * differences != order) {
+          return Result.notOrthogonal(rowA, rowB, order - 2 * differences);
+        }
+      }
+    }
+    return Result.HADAMARD;
+  }
+}
@@ -0,0 +1,62 @@
+package hadamard;
+
+/**
+ * The int loops behind Row and Matrix arithmetic.
+ *
+ * get() returns the jdk.incubator.vector implementation when that module is present
+ * (run with --add-modules jdk.incubator.vector) and the platform has SIMD registers,
+ * unless -Dhadamard.vector=false.  Otherwise it returns the scalar loops.  Both give
+ * bit-identical results; int overflow wraps the same way in either.
+ */
+abstract class IntKernels {
+  private static final IntKernels SCALAR = new ScalarIntKernels();
+  private static final IntKernels VECTOR = loadVectorKernels();
+  private static final IntKernels SELECTED =
+      VECTOR != null && Boolean.parseBoolean(System.getProperty("hadamard.vector", "true"))
+          ? VECTOR : SCALAR;
+
+  static IntKernels get() {
+    return SELECTED;
+  }
+
+  static IntKernels scalar() {
+    return SCALAR;
+  }
+
+  /** Returns the vector implementation, or null if this JVM can't provide one. */
+  static IntKernels vector() {
+    return VECTOR;
+  }
+
+  private static IntKernels loadVectorKernels() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+    try {
+      // Loaded reflectively so that the scalar path never links against the module.
+      IntKernels kernels = (IntKernels) Class.forName("hadamard.VectorIntKernels")
+          .getDeclaredConstructor().newInstance();
+      return kernels.isSupported() ? kernels : null;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  boolean isSupported() {
+    return true;
+  }
+
+  abstract int dot(int[] a, int[] b);
+
+  /** Counts the positions where a and b differ. */
+  abstract int countDifferences(int[] a, int[] b);
+
+  abstract void add(int[] a, int[] b, int[] result);
+
+  abstract void subtract(int[] a, int[] b, int[] result);
+
+  abstract void negate(int[] a, int[] result);
+
+  /** Adds scale * values[i] to result[i] for i in [start, end). */
+  abstract void addScaled(int scale, int[] values, int[] result, int start, int end);
+}
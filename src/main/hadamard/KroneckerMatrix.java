@@ -0,0 +1,90 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The Kronecker product A (x) B computed on demand: entry (i, j) is
+ * A(i / m, j / m) * B(i % m, j % m) where m is the order of B.  Rows are streamed one
+ * at a time from a row of each factor, so no dense product is ever held.  The product
+ * of Hadamard matrices is Hadamard, e.g. Sylvester (x) Paley gives order 2^k (q + 1).
+ */
+public class KroneckerMatrix implements MatrixView {
+  private final MatrixView left;
+  private final MatrixView right;
+  private final int rightOrder;
+
+  public static KroneckerMatrix of(MatrixView left, MatrixView right) {
+    return new KroneckerMatrix(left, right);
+  }
+
+  private KroneckerMatrix(MatrixView left, MatrixView right) {
+    this.left = left;
+    this.right = right;
+    this.rightOrder = right.size();
+    Preconditions.checkState((long) left.size() * rightOrder <= Integer.MAX_VALUE,
+        "Order %s x %s is too large", left.size(), rightOrder);
+  }
+
+  public MatrixView getLeft() {
+    return left;
+  }
+
+  public MatrixView getRight() {
+    return right;
+  }
+
+  @Override
+  public int size() {
+    return left.size() * rightOrder;
+  }
+
+  @Override
+  public int at(int row, int column) {
+    return left.at(row / rightOrder, column / rightOrder)
+        * right.at(row % rightOrder, column % rightOrder);
+  }
+
+  /** Lays out the right factor's row, or its complement, once per left factor column. */
+  @Override
+  public boolean packRow(int row, long[] words) {
+    int leftOrder = left.size();
+    long[] leftRow = new long[PackedMatrix.wordsPerRow(leftOrder)];
+    long[] rightRow = new long[PackedMatrix.wordsPerRow(rightOrder)];
+    if (!left.packRow(row / rightOrder, leftRow) || !right.packRow(row % rightOrder, rightRow)) {
+      return false;
+    }
+    long[] complement = new long[rightRow.length];
+    for (int word = 0; word < rightRow.length; word++) {
+      complement[word] = ~rightRow[word];
+    }
+    complement[complement.length - 1] &= PackedMatrix.lastWordMask(rightOrder);
+    Arrays.fill(words, 0L);
+    for (int block = 0; block < leftOrder; block++) {
+      boolean negative = (leftRow[block >>> 6] & (1L << block)) != 0;
+      PackedMatrix.copyBits(negative ? complement : rightRow, 0, words, block * rightOrder,
+          rightOrder);
+    }
+    return true;
+  }
+
+  @Override
+  public void copyRow(int row, int[] destination) {
+    int leftOrder = left.size();
+    int[] leftRow = new int[leftOrder];
+    int[] rightRow = new int[rightOrder];
+    left.copyRow(row / rightOrder, leftRow);
+    right.copyRow(row % rightOrder, rightRow);
+    for (int block = 0; block < leftOrder; block++) {
+      for (int column = 0; column < rightOrder; column++) {
+        destination[block * rightOrder + column] = leftRow[block] * rightRow[column];
+      }
+    }
+  }
+
+  /** A Kronecker product of +1/-1 matrices is Hadamard exactly when both factors are. */
+  public boolean isHadamard() {
+    return HadamardVerifier.verify(left).isHadamard() && HadamardVerifier.verify(right).isHadamard();
+  }
+}
@@ -0,0 +1,105 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A read-only view of a MatrixFile's body, mapped into memory rather than read onto
+ * the heap.  A single mapping is limited to 2GB, so the body is mapped in chunks of
+ * whole rows, each at most CHUNK_BYTES.  packRow copies a row's words out in one bulk
+ * get, which is how PackedMatrix.fromView and HadamardTransform's bands read it.  The
+ * verifiers instead compare rows in place with numDifferences, so verifying a mapped
+ * matrix never copies it onto the heap.
+ */
+public class MappedMatrix implements MatrixView {
+  static final int CHUNK_BYTES = 1 << 30;
+
+  private final MatrixFile.Header header;
+  private final int order;
+  private final int wordsPerRow;
+  private final int rowsPerChunk;
+  private final MappedByteBuffer[] mappings;
+  private final LongBuffer[] chunks;
+
+  MappedMatrix(Path file, MatrixFile.Header header) {
+    this(file, header, CHUNK_BYTES);
+  }
+
+  MappedMatrix(Path file, MatrixFile.Header header, int chunkBytes) {
+    this.header = header;
+    this.order = header.getOrder();
+    this.wordsPerRow = PackedMatrix.wordsPerRow(order);
+    int rowBytes = MatrixFile.rowBytes(order);
+    this.rowsPerChunk = Math.max(1, chunkBytes / rowBytes);
+    this.mappings = new MappedByteBuffer[(order + rowsPerChunk - 1) / rowsPerChunk];
+    this.chunks = new LongBuffer[mappings.length];
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      for (int chunk = 0; chunk < chunks.length; chunk++) {
+        int rows = Math.min(rowsPerChunk, order - chunk * rowsPerChunk);
+        mappings[chunk] = channel.map(FileChannel.MapMode.READ_ONLY,
+            MatrixFile.HEADER_BYTES + (long) chunk * rowsPerChunk * rowBytes,
+            (long) rows * rowBytes);
+        chunks[chunk] = mappings[chunk].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public MatrixFile.Header getHeader() {
+    return header;
+  }
+
+  @Override
+  public int size() {
+    return order;
+  }
+
+  @Override
+  public int at(int row, int column) {
+    long word = chunks[row / rowsPerChunk].get(
+        (row % rowsPerChunk) * wordsPerRow + (column >>> 6));
+    return (word & (1L << column)) == 0 ? 1 : -1;
+  }
+
+  @Override
+  public boolean packRow(int row, long[] words) {
+    chunks[row / rowsPerChunk].get((row % rowsPerChunk) * wordsPerRow, words, 0, wordsPerRow);
+    return true;
+  }
+
+  /** The number of columns in which two rows differ, read straight from the mapping. */
+  int numDifferences(int rowA, int rowB) {
+    LongBuffer chunkA = chunks[rowA / rowsPerChunk];
+    LongBuffer chunkB = chunks[rowB / rowsPerChunk];
+    int offsetA = (rowA % rowsPerChunk) * wordsPerRow;
+    int offsetB = (rowB % rowsPerChunk) * wordsPerRow;
+    int last = wordsPerRow - 1;
+    int differences = 0;
+    for (int word = 0; word < last; word++) {
+      differences += Long.bitCount(chunkA.get(offsetA + word) ^ chunkB.get(offsetB + word));
+    }
+    // The body is only checked by checkBody, so keep stray padding bits out of the count.
+    return differences + Long.bitCount((chunkA.get(offsetA + last) ^ chunkB.get(offsetB + last))
+        & PackedMatrix.lastWordMask(order));
+  }
+
+  /** Reads the whole body, checking it against the CRC32 in the header. */
+  public void checkBody() {
+    CRC32 crc = new CRC32();
+    for (MappedByteBuffer mapping : mappings) {
+      crc.update(mapping.duplicate());
+    }
+    Preconditions.checkState((int) crc.getValue() == header.getBodyCrc(),
+        "Matrix file body is corrupt");
+  }
+}
@@ -1,11 +1,15 @@
 package hadamard;
 
+import com.google.common.base.Preconditions;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class Matrix {
+public class Matrix implements MatrixView {
   int[][] matrix;
 
   public static Matrix identity(int order) {
@@ -28,21 +32,44 @@ public class Matrix {
     this.matrix = matrix;
   }
 
+  @Override
   public int size() {
     return matrix.length;
   }
 
+  @Override
   public int at(int row, int column) {
     return matrix[row][column];
   }
 
+  @Override
+  public boolean packRow(int row, long[] words) {
+    Arrays.fill(words, 0L);
+    int[] values = matrix[row];
+    for (int column = 0; column < values.length; column++) {
+      if (values[column] == -1) {
+        words[column >>> 6] |= 1L << column;
+      } else if (values[column] != 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void copyRow(int row, int[] destination) {
+    System.arraycopy(matrix[row], 0, destination, 0, matrix.length);
+  }
+
+  /** The column as a getSummaryInt value read from the bottom row up. */
   public int columnSummary(int column) {
-    List<Integer> values = new ArrayList<>();
+    Preconditions.checkState(matrix.length <= Row.MAX_SUMMARY_LENGTH,
+        "Order %s too large for an int summary", matrix.length);
+    int result = 0;
     for (int row = matrix.length - 1; row >= 0; row--) {
-      values.add(matrix[row][column]);
+      result = result << 1 | (matrix[row][column] == -1 ? 0 : 1);
     }
-    Row pseudoRow = Row.fromList(values);
-    return pseudoRow.getSummaryInt();
+    return result;
   }
 
   public int rowSummary(int row) {
@@ -74,10 +101,9 @@ public class Matrix {
 
   public Matrix negate() {
     int result[][] = new int[matrix.length][matrix.length];
+    IntKernels kernels = IntKernels.get();
     for (int row = 0; row < matrix.length; row++) {
-      for (int column = 0; column < matrix.length; column++) {
-        result[column][row] = -matrix[row][column];
-      }
+      kernels.negate(matrix[row], result[row]);
     }
     return new Matrix(result);
   }
@@ -124,20 +150,18 @@ public class Matrix {
 
   public Matrix plus(Matrix operand) {
     int result[][] = new int[matrix.length][matrix.length];
+    IntKernels kernels = IntKernels.get();
     for (int row = 0; row < matrix.length; row++) {
-      for (int column = 0; column < matrix.length; column++) {
-        result[row][column] = matrix[row][column] + operand.at(row, column);
-      }
+      kernels.add(matrix[row], operand.matrix[row], result[row]);
     }
     return new Matrix(result);
   }
 
   public Matrix minus(Matrix operand) {
     int result[][] = new int[matrix.length][matrix.length];
+    IntKernels kernels = IntKernels.get();
     for (int row = 0; row < matrix.length; row++) {
-      for (int column = 0; column < matrix.length; column++) {
-        result[row][column] = matrix[row][column] - operand.at(row, column);
-      }
+      kernels.subtract(matrix[row], operand.matrix[row], result[row]);
     }
     return new Matrix(result);
   }
@@ -148,14 +172,118 @@ public class Matrix {
     }
   }
 
+  /** Rows and columns per cache block in times and timesTranspose. */
+  private static final int BLOCK = 64;
+
   public Matrix times(Matrix operand) {
-    // A1B1   A2B2     A1A2 + B1C2   A1B2 + B1D2
-    // C1D1 * C2D2  =  C1A2 + D1C2   C1B2 + D1D2
     int result[][] = new int[matrix.length][matrix.length];
-    for (int row = 0; row < matrix.length; row++) {
-      for (int column = 0; column < matrix.length; column++) {
-        for (int columnB = 0; columnB < matrix.length; columnB++) {
-          result[row][column] += matrix[row][columnB] * operand.at(columnB, column);
+    multiplyRows(operand.matrix, result, 0, matrix.length);
+    return new Matrix(result);
+  }
+
+  /** Computes times(operand) with bands of result rows spread across the pool. */
+  public Matrix times(Matrix operand, ForkJoinPool pool) {
+    int result[][] = new int[matrix.length][matrix.length];
+    pool.invoke(new RowBands(0, matrix.length,
+        (startRow, endRow) -> multiplyRows(operand.matrix, result, startRow, endRow)));
+    return new Matrix(result);
+  }
+
+  // A1B1   A2B2     A1A2 + B1C2   A1B2 + B1D2
+  // C1D1 * C2D2  =  C1A2 + D1C2   C1B2 + D1D2
+  // Each result row accumulates scaled operand rows, one BLOCK x BLOCK tile of the
+  // operand at a time, so every access walks a row.
+  private void multiplyRows(int[][] operand, int[][] result, int startRow, int endRow) {
+    IntKernels kernels = IntKernels.get();
+    for (int startK = 0; startK < matrix.length; startK += BLOCK) {
+      int endK = Math.min(matrix.length, startK + BLOCK);
+      for (int startColumn = 0; startColumn < matrix.length; startColumn += BLOCK) {
+        int endColumn = Math.min(matrix.length, startColumn + BLOCK);
+        for (int row = startRow; row < endRow; row++) {
+          int[] values = matrix[row];
+          int[] resultRow = result[row];
+          for (int k = startK; k < endK; k++) {
+            int scale = values[k];
+            if (scale == 0) {
+              continue;
+            }
+            kernels.addScaled(scale, operand[k], resultRow, startColumn, endColumn);
+          }
+        }
+      }
+    }
+  }
+
+  /** Returns this * operand^T without building the transpose. */
+  public Matrix timesTranspose(Matrix operand) {
+    int result[][] = new int[matrix.length][matrix.length];
+    multiplyRowsTranspose(operand.matrix, result, 0, matrix.length);
+    return new Matrix(result);
+  }
+
+  /** Computes timesTranspose(operand) with bands of result rows spread across the pool. */
+  public Matrix timesTranspose(Matrix operand, ForkJoinPool pool) {
+    int result[][] = new int[matrix.length][matrix.length];
+    pool.invoke(new RowBands(0, matrix.length,
+        (startRow, endRow) -> multiplyRowsTranspose(operand.matrix, result, startRow, endRow)));
+    return new Matrix(result);
+  }
+
+  // Entry (row, column) is the dot product of two rows.  A BLOCK of operand rows is
+  // reused against every row of the band before moving on.
+  private void multiplyRowsTranspose(int[][] operand, int[][] result, int startRow, int endRow) {
+    IntKernels kernels = IntKernels.get();
+    for (int startColumn = 0; startColumn < matrix.length; startColumn += BLOCK) {
+      int endColumn = Math.min(matrix.length, startColumn + BLOCK);
+      for (int row = startRow; row < endRow; row++) {
+        int[] values = matrix[row];
+        for (int column = startColumn; column < endColumn; column++) {
+          result[row][column] = kernels.dot(values, operand[column]);
+        }
+      }
+    }
+  }
+
+  private interface RowKernel {
+    void compute(int startRow, int endRow);
+  }
+
+  /** Splits [startRow, endRow) in half until bands are at most BLOCK rows. */
+  private static class RowBands extends RecursiveAction {
+    private final int startRow;
+    private final int endRow;
+    private final RowKernel kernel;
+
+    RowBands(int startRow, int endRow, RowKernel kernel) {
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.kernel = kernel;
+    }
+
+    @Override
+    protected void compute() {
+      if (endRow - startRow <= BLOCK) {
+        kernel.compute(startRow, endRow);
+        return;
+      }
+      int middle = (startRow + endRow) >>> 1;
+      invokeAll(new RowBands(startRow, middle, kernel), new RowBands(middle, endRow, kernel));
+    }
+  }
+
+  /** Returns the dense Kronecker product, with this matrix choosing the blocks. */
+  public Matrix kronecker(Matrix operand) {
+    int operandOrder = operand.size();
+    int order = matrix.length * operandOrder;
+    int[][] result = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      int[] values = matrix[row / operandOrder];
+      int[] operandValues = operand.matrix[row % operandOrder];
+      int[] resultRow = result[row];
+      for (int block = 0; block < matrix.length; block++) {
+        int scale = values[block];
+        for (int column = 0; column < operandOrder; column++) {
+          resultRow[block * operandOrder + column] = scale * operandValues[column];
         }
       }
     }
@@ -163,9 +291,7 @@ public class Matrix {
   }
 
   public boolean isHadamard() {
-    Matrix transpose = transpose();
-    Matrix product = times(transpose);
-    return product.isNTimesIdentity();
+    return ParallelHadamardVerifier.getDefault().verify(this).isHadamard();
   }
 
   @Override
@@ -182,25 +308,10 @@ public class Matrix {
 
   @Override
   public String toString() {
-    String result = "";
-    for (int row = 0; row < matrix.length; row++) {
-      result += Row.fromArray(matrix[row]) + "\n";
-    }
-    return result;
+    return MatrixWriter.toString(this, MatrixWriter.Format.PLAIN);
   }
 
   public String toTexString() {
-    String result = "\\begin{equation}\n" +
-        "\\begin{pmatrix}\n";
-    for (int row = 0; row < matrix.length; row++) {
-      for (int column = 0; column < matrix.length; column++) {
-        result += String.format("%s%s", column == 0 ? "" : " & ",
-            matrix[row][column] == -1 ? "-" : "1");
-      }
-      result += " \\\\\n";
-    }
-    result += "\\end{pmatrix}\n" +
-        "\\end{equation}\n";
-    return result;
+    return MatrixWriter.toString(this, MatrixWriter.Format.TEX);
   }
 }
@@ -0,0 +1,226 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A +1/-1 matrix on disk at one bit per entry.
+ *
+ * The file is little-endian:
+ *   int magic "HMAT", int version, int order
+ *   int construction ordinal + 1, or 0 if unknown; int p, int exponent
+ *   int flags, bit 0 set if the matrix was verified Hadamard
+ *   int CRC32 of the body, int CRC32 of the header bytes before it
+ *   zero padding to HEADER_BYTES
+ * then the body, each row as PackedMatrix words.  The header size keeps every word
+ * 8-byte aligned, so MappedMatrix reads rows straight out of the mapping.  Files are
+ * written to a uniquely named temporary file through a channel a buffer at a time,
+ * forced to disk and moved into place, so a reader never sees a partial file and
+ * concurrent writers of the same file never share one.  A failed write deletes its
+ * temporary file.
+ */
+public class MatrixFile {
+  static final int MAGIC = 0x54414d48;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 64;
+  private static final int VERIFIED = 1;
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  /** What a file says about its matrix. */
+  public static class Header {
+    private final int order;
+    private final Construction construction;
+    private final int p;
+    private final int exponent;
+    private final boolean verified;
+    private final int bodyCrc;
+
+    /** construction may be null, and p and exponent 0, when they don't apply. */
+    public Header(int order, Construction construction, int p, int exponent,
+        boolean verified) {
+      this(order, construction, p, exponent, verified, 0);
+    }
+
+    private Header(int order, Construction construction, int p, int exponent,
+        boolean verified, int bodyCrc) {
+      Preconditions.checkState(order > 0, "Order %s must be positive", order);
+      this.order = order;
+      this.construction = construction;
+      this.p = p;
+      this.exponent = exponent;
+      this.verified = verified;
+      this.bodyCrc = bodyCrc;
+    }
+
+    public int getOrder() {
+      return order;
+    }
+
+    public Construction getConstruction() {
+      return construction;
+    }
+
+    public int getP() {
+      return p;
+    }
+
+    public int getExponent() {
+      return exponent;
+    }
+
+    /** Whether the writer verified the matrix to be Hadamard. */
+    public boolean isVerified() {
+      return verified;
+    }
+
+    int getBodyCrc() {
+      return bodyCrc;
+    }
+
+    long bodyBytes() {
+      return (long) order * rowBytes(order);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("order %d %s(%d^%d)%s", order, construction, p, exponent,
+          verified ? " verified" : "");
+    }
+  }
+
+  static int rowBytes(int order) {
+    return Long.BYTES * PackedMatrix.wordsPerRow(order);
+  }
+
+  /** Atomically replaces the file with the matrix, which must hold only +1 and -1. */
+  public static void write(Path file, MatrixView matrix, Header header) {
+    int order = matrix.size();
+    Preconditions.checkState(order == header.getOrder(),
+        "Matrix of order %s, header of order %s", order, header.getOrder());
+    Path absolute = file.toAbsolutePath();
+    Path temporary = null;
+    boolean moved = false;
+    try {
+      temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName() + ".",
+          ".tmp");
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        CRC32 crc = new CRC32();
+        long[] words = new long[PackedMatrix.wordsPerRow(order)];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(
+            Math.max(rowBytes(order), WRITE_BUFFER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+        channel.position(HEADER_BYTES);
+        for (int row = 0; row < order; row++) {
+          Preconditions.checkState(matrix.packRow(row, words), "Row %s is not +1/-1", row);
+          if (buffer.remaining() < rowBytes(order)) {
+            drain(buffer, channel, crc);
+          }
+          for (long word : words) {
+            buffer.putLong(word);
+          }
+        }
+        drain(buffer, channel, crc);
+        ByteBuffer encoded = encode(new Header(order, header.getConstruction(), header.getP(),
+            header.getExponent(), header.isVerified(), (int) crc.getValue()));
+        while (encoded.hasRemaining()) {
+          channel.write(encoded, encoded.position());
+        }
+        channel.force(true);
+      }
+      Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      moved = true;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      if (temporary != null && !moved) {
+        deleteQuietly(temporary);
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // The write has already failed; report that rather than the cleanup.
+    }
+  }
+
+  private static void drain(ByteBuffer buffer, FileChannel channel, CRC32 crc)
+      throws IOException {
+    buffer.flip();
+    crc.update(buffer.duplicate());
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static ByteBuffer encode(Header header) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(header.getOrder())
+        .putInt(header.getConstruction() == null ? 0 : header.getConstruction().ordinal() + 1)
+        .putInt(header.getP()).putInt(header.getExponent())
+        .putInt(header.isVerified() ? VERIFIED : 0).putInt(header.getBodyCrc());
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, buffer.position());
+    buffer.putInt((int) crc.getValue());
+    buffer.rewind();
+    return buffer;
+  }
+
+  /** Reads and checks the header, without reading the body. */
+  public static Header readHeader(Path file) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          break;
+        }
+      }
+      Preconditions.checkState(!buffer.hasRemaining(), "%s is too short", file);
+      Header header = decode(buffer, file);
+      Preconditions.checkState(channel.size() == HEADER_BYTES + header.bodyBytes(),
+          "%s holds %s bytes, not %s", file, channel.size(), HEADER_BYTES + header.bodyBytes());
+      return header;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Header decode(ByteBuffer buffer, Path file) {
+    buffer.flip();
+    Preconditions.checkState(buffer.getInt() == MAGIC, "%s is not a matrix file", file);
+    int version = buffer.getInt();
+    Preconditions.checkState(version == VERSION, "Matrix file version %s unsupported", version);
+    int order = buffer.getInt();
+    int construction = buffer.getInt();
+    int p = buffer.getInt();
+    int exponent = buffer.getInt();
+    int flags = buffer.getInt();
+    int bodyCrc = buffer.getInt();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, buffer.position());
+    Preconditions.checkState(buffer.getInt() == (int) crc.getValue(),
+        "Matrix file %s has a corrupt header", file);
+    Preconditions.checkState(order > 0 && construction >= 0
+        && construction <= Construction.values().length, "Matrix file %s is invalid", file);
+    return new Header(order, construction == 0 ? null : Construction.values()[construction - 1],
+        p, exponent, (flags & VERIFIED) != 0, bodyCrc);
+  }
+
+  /** Maps the file for reading, checking its header but not its body. */
+  public static MappedMatrix map(Path file) {
+    return new MappedMatrix(file, readHeader(file));
+  }
+}
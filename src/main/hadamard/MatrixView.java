@@ -0,0 +1,47 @@
+package hadamard;
+
+import java.util.Arrays;
+
+/** Read-only access to a square matrix. */
+public interface MatrixView {
+  int size();
+
+  int at(int row, int column);
+
+  /**
+   * Packs a row into words using the PackedMatrix layout, where a set bit means -1.
+   * Returns false if the row holds an entry other than +1 or -1, in which case the
+   * contents of words are unspecified.
+   */
+  default boolean packRow(int row, long[] words) {
+    Arrays.fill(words, 0L);
+    int order = size();
+    for (int column = 0; column < order; column++) {
+      int value = at(row, column);
+      if (value == -1) {
+        words[column >>> 6] |= 1L << column;
+      } else if (value != 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Copies a row into destination, which must have room for size() entries. */
+  default void copyRow(int row, int[] destination) {
+    int order = size();
+    for (int column = 0; column < order; column++) {
+      destination[column] = at(row, column);
+    }
+  }
+
+  /** Returns a dense copy. */
+  default Matrix toMatrix() {
+    int order = size();
+    int[][] values = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      copyRow(row, values[row]);
+    }
+    return new Matrix(values);
+  }
+}
@@ -0,0 +1,153 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a matrix as text one row at a time.  Each row is formatted into a reused char
+ * buffer and handed to the Writer in a single call, so output is linear in its size and
+ * nothing but the buffer is allocated.
+ *
+ * PLAIN is Matrix.toString: every entry right-aligned in two columns and followed by a
+ * space.  TEX is Matrix.toTexString: a pmatrix inside an equation, -1 as "-" and any
+ * other entry as "1".  CSV separates entries with commas.  COMPACT writes +1 as '+' and
+ * -1 as '-' with no separators, and rejects any other entry.
+ */
+public class MatrixWriter {
+  public enum Format {
+    PLAIN, TEX, CSV, COMPACT,
+  }
+
+  private static final String TEX_HEADER = "\\begin{equation}\n\\begin{pmatrix}\n";
+  private static final String TEX_FOOTER = "\\end{pmatrix}\n\\end{equation}\n";
+  // Characters in the longest int, "-2147483648".
+  private static final int MAX_DIGITS = 11;
+
+  private final Format format;
+  private int[] values = new int[0];
+  private char[] line = new char[0];
+
+  public MatrixWriter(Format format) {
+    this.format = format;
+  }
+
+  public static String toString(MatrixView matrix, Format format) {
+    StringWriter writer = new StringWriter();
+    try {
+      new MatrixWriter(format).write(matrix, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  /** Writes the matrix to the file, replacing it. */
+  public void write(MatrixView matrix, Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+      write(matrix, writer);
+    }
+  }
+
+  /** Writes the matrix to the stream, flushing but not closing it. */
+  public void write(MatrixView matrix, OutputStream stream) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.US_ASCII));
+    write(matrix, writer);
+    writer.flush();
+  }
+
+  public void write(MatrixView matrix, Writer writer) throws IOException {
+    int order = matrix.size();
+    if (format == Format.TEX) {
+      writer.write(TEX_HEADER);
+    }
+    if (values.length < order) {
+      values = new int[order];
+      line = new char[order * (MAX_DIGITS + 3) + 4];
+    }
+    for (int row = 0; row < order; row++) {
+      matrix.copyRow(row, values);
+      writer.write(line, 0, formatRow(values, order, line, format, row));
+    }
+    if (format == Format.TEX) {
+      writer.write(TEX_FOOTER);
+    }
+  }
+
+  /** Row.toString: the row's PLAIN line without its newline. */
+  static String rowString(int[] values) {
+    char[] line = new char[values.length * (MAX_DIGITS + 1) + 1];
+    return new String(line, 0, formatRow(values, values.length, line, Format.PLAIN, 0) - 1);
+  }
+
+  /** Formats the first length values, with a newline, and returns the characters used. */
+  private static int formatRow(int[] values, int length, char[] line, Format format,
+      int row) {
+    int position = 0;
+    for (int column = 0; column < length; column++) {
+      int value = values[column];
+      switch (format) {
+        case PLAIN:
+          position = appendInt(line, position, value, 2);
+          line[position++] = ' ';
+          break;
+        case TEX:
+          if (column > 0) {
+            line[position++] = ' ';
+            line[position++] = '&';
+            line[position++] = ' ';
+          }
+          line[position++] = value == -1 ? '-' : '1';
+          break;
+        case CSV:
+          if (column > 0) {
+            line[position++] = ',';
+          }
+          position = appendInt(line, position, value, 0);
+          break;
+        case COMPACT:
+          Preconditions.checkState(value == 1 || value == -1,
+              "Entry (%s, %s) is %s, not +1/-1", row, column, value);
+          line[position++] = value == 1 ? '+' : '-';
+          break;
+      }
+    }
+    if (format == Format.TEX) {
+      line[position++] = ' ';
+      line[position++] = '\\';
+      line[position++] = '\\';
+    }
+    line[position++] = '\n';
+    return position;
+  }
+
+  /** Writes the decimal value right-aligned in at least width characters. */
+  private static int appendInt(char[] line, int position, int value, int width) {
+    long magnitude = Math.abs((long) value);
+    int digits = 1;
+    for (long rest = magnitude / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int length = digits + (value < 0 ? 1 : 0);
+    for (int pad = length; pad < width; pad++) {
+      line[position++] = ' ';
+    }
+    if (value < 0) {
+      line[position++] = '-';
+    }
+    for (int i = position + digits - 1; i >= position; i--) {
+      line[i] = (char) ('0' + magnitude % 10);
+      magnitude /= 10;
+    }
+    return position + digits;
+  }
+}
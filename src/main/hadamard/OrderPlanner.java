@@ -0,0 +1,180 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Chooses how to build a Hadamard matrix of a requested order.  Every applicable
+ * construction is considered, Kronecker products recursively over the factors, and the
+ * one with the lowest estimated cost wins.  Plans are memoized per order.
+ *
+ * Costs are rough counts of entry computations: the matrix itself is n^2, a Paley
+ * matrix pays again for its field tables and character lookups, and a Williamson
+ * matrix pays for its sequence search, which grows as 2^(3(m - 1) / 2).
+ */
+public class OrderPlanner {
+  // Williamson searches past this length take minutes or find nothing.
+  static final int MAX_WILLIAMSON_LENGTH = 29;
+
+  /** A recipe for one order, with its parameters and estimated cost. */
+  public static class Plan {
+    private final Construction construction;
+    private final int order;
+    private final int p;
+    private final int exponent;
+    private final Plan left;
+    private final Plan right;
+    private final long estimatedCost;
+
+    private Plan(Construction construction, int order, int p, int exponent, Plan left,
+        Plan right, long estimatedCost) {
+      this.construction = construction;
+      this.order = order;
+      this.p = p;
+      this.exponent = exponent;
+      this.left = left;
+      this.right = right;
+      this.estimatedCost = estimatedCost;
+    }
+
+    public Construction getConstruction() {
+      return construction;
+    }
+
+    public int getOrder() {
+      return order;
+    }
+
+    /** The field characteristic of a Paley plan, otherwise 0. */
+    public int getP() {
+      return p;
+    }
+
+    /** The field exponent of a Paley plan, otherwise 0. */
+    public int getExponent() {
+      return exponent;
+    }
+
+    /** The left factor of a Kronecker plan, otherwise null. */
+    public Plan getLeft() {
+      return left;
+    }
+
+    /** The right factor of a Kronecker plan, otherwise null. */
+    public Plan getRight() {
+      return right;
+    }
+
+    public long getEstimatedCost() {
+      return estimatedCost;
+    }
+
+    /** Builds the matrix; only Williamson plans use the pool. */
+    public MatrixView build(ForkJoinPool pool) {
+      switch (construction) {
+        case PALEY_ONE:
+          return PaleyMatrix.constructionOne(new GaloisField(p, exponent));
+        case PALEY_TWO:
+          return PaleyMatrix.constructionTwo(new GaloisField(p, exponent));
+        case SYLVESTER:
+          return SylvesterMatrix.ofOrder(order);
+        case KRONECKER:
+          return KroneckerMatrix.of(left.build(pool), right.build(pool));
+        case WILLIAMSON:
+          return WilliamsonSearch.construct(order, pool);
+        default:
+          throw new IllegalStateException("Unknown construction " + construction);
+      }
+    }
+
+    @Override
+    public String toString() {
+      switch (construction) {
+        case PALEY_ONE:
+        case PALEY_TWO:
+          return String.format("%s(%d^%d)", construction, p, exponent);
+        case KRONECKER:
+          return String.format("%s(%s, %s)", construction, left, right);
+        default:
+          return String.format("%s(%d)", construction, order);
+      }
+    }
+  }
+
+  private final ForkJoinPool pool;
+  private final Map<Integer, Optional<Plan>> plans = new HashMap<>();
+
+  public OrderPlanner() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public OrderPlanner(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /** Builds a Hadamard matrix of the given order with its cheapest plan. */
+  public MatrixView build(int order) {
+    Plan plan = constructionFor(order);
+    Preconditions.checkState(plan != null, "No construction for order %s", order);
+    return plan.build(pool);
+  }
+
+  /** Returns the cheapest plan for the order, or null if no construction reaches it. */
+  public synchronized Plan constructionFor(int order) {
+    Preconditions.checkState(order > 0, "Order %s must be positive", order);
+    Optional<Plan> plan = plans.get(order);
+    if (plan == null) {
+      plan = Optional.ofNullable(cheapest(order));
+      plans.put(order, plan);
+    }
+    return plan.orElse(null);
+  }
+
+  private Plan cheapest(int order) {
+    if (order > 2 && order % 4 != 0) {
+      return null;
+    }
+    long square = (long) order * order;
+    Plan best = null;
+    if (Integer.bitCount(order) == 1) {
+      best = cheaper(best, new Plan(Construction.SYLVESTER, order, 0, 0, null, null, square));
+    }
+    PrimePowers.PrimePower primePower = order > 3 ? PrimePowers.decompose(order - 1) : null;
+    if (primePower != null && (order - 1) % 4 == 3) {
+      best = cheaper(best, new Plan(Construction.PALEY_ONE, order, (int) primePower.getPrime(),
+          primePower.getExponent(), null, null, 2 * square));
+    }
+    primePower = order > 4 ? PrimePowers.decompose(order / 2 - 1) : null;
+    if (primePower != null && (order / 2 - 1) % 4 == 1) {
+      best = cheaper(best, new Plan(Construction.PALEY_TWO, order, (int) primePower.getPrime(),
+          primePower.getExponent(), null, null, 2 * square));
+    }
+    for (int leftOrder = 2; leftOrder * leftOrder <= order; leftOrder++) {
+      if (order % leftOrder != 0) {
+        continue;
+      }
+      Plan left = constructionFor(leftOrder);
+      Plan right = left == null ? null : constructionFor(order / leftOrder);
+      if (right != null) {
+        best = cheaper(best, new Plan(Construction.KRONECKER, order, 0, 0, left, right,
+            square + left.getEstimatedCost() + right.getEstimatedCost()));
+      }
+    }
+    int length = order / 4;
+    if (order % 4 == 0 && length % 2 == 1 && length <= MAX_WILLIAMSON_LENGTH) {
+      long search = 1L << (3 * (length - 1) / 2);
+      best = cheaper(best,
+          new Plan(Construction.WILLIAMSON, order, 0, 0, null, null, 4 * square + search));
+    }
+    return best;
+  }
+
+  private static Plan cheaper(Plan best, Plan candidate) {
+    return best == null || candidate.getEstimatedCost() < best.getEstimatedCost()
+        ? candidate : best;
+  }
+}
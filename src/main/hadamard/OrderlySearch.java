@@ -0,0 +1,391 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Row-by-row search for normalized Hadamard matrices that visits far fewer matrices
+ * equal up to row and column permutations than CliqueSearch.
+ *
+ * Rows below the all-ones row are Row.fromBits codes, compared as getSummaryInt values
+ * (-1 below +1, column 0 most significant), and each row must exceed the one above it.
+ * Columns after the first are kept in nondecreasing order too, comparing column
+ * vectors with the top row most significant.  Any matrix can be permuted into this
+ * double-lex form, and it means columns that agree on every row so far form contiguous
+ * blocks in which the next row must be some -1s followed by some +1s.  So a row is
+ * chosen as a count of +1s per block, and its dot product with each earlier row is a
+ * linear function of those counts, which bounds the choice block by block.
+ *
+ * Further, while at most canonicalDepth rows are placed, a prefix is dropped if some
+ * permutation of its rows, with its columns re-sorted, gives a lexicographically
+ * smaller prefix.  The smallest matrix in each permutation class is double-lex and
+ * every prefix of it passes this test, so every class is still reached; with a
+ * canonicalDepth of n - 1 it is reached exactly once.
+ *
+ * With a Checkpointer the search saves the rows above the next row it will place, and
+ * enumerate() resumes after the nodes that were already finished.
+ */
+public class OrderlySearch {
+  /** Receives the row codes below the all-ones row; return false to stop. */
+  public interface Visitor {
+    boolean visit(int[] rowCodes);
+  }
+
+  static final int MAX_ORDER = 28;
+  static final String CHECKPOINT_NAME = "orderly";
+
+  private final int order;
+  private final int half;
+  private final int canonicalDepth;
+  // Placed rows 1 .. n - 1, as Row.fromBits codes.
+  private final int[] rowCodes;
+  // Block boundaries over columns 1 .. n - 1 (positions 0 .. n - 2) per placed row count:
+  // block b of level d covers [blockStarts[d][b], blockStarts[d][b + 1]).
+  private final int[][] blockStarts;
+  private final int[] blockCounts;
+  // plusCounts[d][b]: +1 entries in each column of block b, counting the all-ones row.
+  private final int[][] plusCounts;
+  // choices[d][b]: the +1 count chosen in block b for the row placed at level d.
+  private final int[][] choices;
+  // partialDots[d][r]: dot product over the blocks chosen so far with row r + 1.
+  private final int[][] partialDots;
+  private long visited;
+  private long nodes;
+  private boolean stopped;
+  private Checkpointer checkpointer;
+  // Only nodes at shardDepth whose prefix falls in shardIndex are searched.
+  private int shardIndex = 0;
+  private int shardCount = 1;
+  private int shardDepth = 0;
+  // While resuming, the saved rows to descend to before searching.
+  private int[] resumePath;
+  private boolean resuming;
+
+  public OrderlySearch(int order, int canonicalDepth) {
+    Preconditions.checkState(order >= 4 && order % 4 == 0 && order <= MAX_ORDER,
+        "Order %s is not a multiple of 4 in [4, %s]", order, MAX_ORDER);
+    this.order = order;
+    this.half = order / 2;
+    this.canonicalDepth = canonicalDepth;
+    this.rowCodes = new int[order - 1];
+    this.blockStarts = new int[order][order];
+    this.blockCounts = new int[order];
+    this.plusCounts = new int[order][order];
+    this.choices = new int[order][order];
+    this.partialDots = new int[order][order];
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  /** Returns the number of search nodes, placed rows, in the last enumeration. */
+  public long getNodes() {
+    return nodes;
+  }
+
+  public void setCheckpointer(Checkpointer checkpointer) {
+    this.checkpointer = checkpointer;
+  }
+
+  /**
+   * Restricts the search to one of shardCount disjoint shards, split by the prefix of
+   * shardDepth rows; see ShardedSearch.shardOf.
+   */
+  public void setShard(int shardIndex, int shardCount, int shardDepth) {
+    Preconditions.checkState(0 <= shardIndex && shardIndex < shardCount,
+        "Shard %s not in [0, %s)", shardIndex, shardCount);
+    Preconditions.checkState(0 < shardDepth && shardDepth <= order - 1,
+        "Shard depth %s out of range", shardDepth);
+    this.shardIndex = shardIndex;
+    this.shardCount = shardCount;
+    this.shardDepth = shardDepth;
+  }
+
+  public long count() {
+    return enumerate(codes -> true);
+  }
+
+  /** Visits matrices until the visitor returns false; returns the number visited. */
+  public long enumerate(Visitor visitor) {
+    visited = 0;
+    nodes = 0;
+    stopped = false;
+    resuming = false;
+    if (checkpointer != null) {
+      Checkpoint checkpoint = checkpointer.load(CHECKPOINT_NAME, checkpointParameters());
+      if (checkpoint != null) {
+        visited = checkpoint.getCounters()[0];
+        nodes = checkpoint.getCounters()[1];
+        if (checkpoint.isComplete()) {
+          return visited;
+        }
+        resumePath = checkpoint.getFrontier();
+        resuming = true;
+      }
+    }
+    blockCounts[0] = 1;
+    blockStarts[0][0] = 0;
+    blockStarts[0][1] = order - 1;
+    plusCounts[0][0] = 1;
+    placeRow(0, visitor);
+    if (checkpointer != null && !stopped) {
+      checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(),
+          new long[] {visited, nodes}, new int[0], true));
+    }
+    return visited;
+  }
+
+  private int[] checkpointParameters() {
+    return new int[] {order, canonicalDepth, shardIndex, shardCount, shardDepth};
+  }
+
+  /** Returns the first matrix found, or null if there is none. */
+  public Matrix findFirst() {
+    int[][] first = new int[1][];
+    enumerate(codes -> {
+      first[0] = codes.clone();
+      return false;
+    });
+    return first[0] == null ? null : toMatrix(order, first[0]);
+  }
+
+  /** Returns the normalized matrix with the given row codes below the all-ones row. */
+  public static Matrix toMatrix(int order, int[] rowCodes) {
+    int[][] values = new int[rowCodes.length + 1][order];
+    Arrays.fill(values[0], 1);
+    for (int i = 0; i < rowCodes.length; i++) {
+      Row row = Row.fromBits(order, rowCodes[i]);
+      for (int column = 0; column < order; column++) {
+        values[i + 1][column] = row.at(column);
+      }
+    }
+    return new Matrix(values);
+  }
+
+  /** Places row depth + 1, given depth rows below the all-ones row. */
+  private void placeRow(int depth, Visitor visitor) {
+    if (resuming && depth == resumePath.length) {
+      resuming = false;
+    }
+    if (depth == shardDepth && ShardedSearch.shardOf(rowCodes, depth, shardCount) != shardIndex) {
+      return;
+    }
+    if (!resuming && checkpointer != null && checkpointer.isDue()) {
+      checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(),
+          new long[] {visited, nodes}, Arrays.copyOf(rowCodes, depth), false));
+    }
+    if (depth == order - 1) {
+      visited++;
+      stopped = !visitor.visit(rowCodes);
+      return;
+    }
+    Arrays.fill(partialDots[depth], 0, depth, 0);
+    assignBlock(depth, 0, 0, depth > 0, visitor);
+  }
+
+  /**
+   * Chooses the +1 count of block b.  plus is the +1 count so far over earlier blocks,
+   * and tight means the row so far equals the row above it.
+   */
+  private void assignBlock(int depth, int b, int plus, boolean tight, Visitor visitor) {
+    int blocks = blockCounts[depth];
+    int[] starts = blockStarts[depth];
+    if (b == blocks) {
+      if (plus == half - 1 && !tight && dotsComplete(depth)) {
+        acceptRow(depth, visitor);
+      }
+      return;
+    }
+    int size = starts[b + 1] - starts[b];
+    int remainingColumns = order - 1 - starts[b + 1];
+    int columnPlus = plusCounts[depth][b];
+    int columnMinus = depth + 1 - columnPlus;
+    int low = columnMinus == half ? size : 0;
+    int high = columnPlus == half ? 0 : size;
+    low = Math.max(low, half - 1 - plus - remainingColumns);
+    high = Math.min(high, half - 1 - plus);
+    int previousPlus = depth == 0 ? 0 : bit(rowCodes[depth - 1], starts[b]);
+    for (int x = low; x <= high && !stopped; x++) {
+      boolean stillTight = tight;
+      if (tight) {
+        // Within the block the row has size - x entries of -1, then x of +1, while the
+        // row above is constant there.
+        if (previousPlus == 1 && x < size) {
+          continue;
+        }
+        stillTight = previousPlus == 1 ? x == size : x == 0;
+      }
+      int contribution = 2 * x - size;
+      if (addToDots(depth, starts[b], contribution, remainingColumns)) {
+        choices[depth][b] = x;
+        assignBlock(depth, b + 1, plus + x, stillTight, visitor);
+      }
+      addToDots(depth, starts[b], -contribution, remainingColumns);
+    }
+  }
+
+  /**
+   * Adds a block's contribution, with the sign of each earlier row there, to the dot
+   * product with that row, returning whether every one can still reach -1, the value
+   * that cancels column 0.
+   */
+  private boolean addToDots(int depth, int start, int contribution, int remainingColumns) {
+    int[] dots = partialDots[depth];
+    boolean reachable = true;
+    for (int row = 0; row < depth; row++) {
+      dots[row] += bit(rowCodes[row], start) == 1 ? contribution : -contribution;
+      reachable &= Math.abs(-1 - dots[row]) <= remainingColumns;
+    }
+    return reachable;
+  }
+
+  private boolean dotsComplete(int depth) {
+    for (int row = 0; row < depth; row++) {
+      if (partialDots[depth][row] != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void acceptRow(int depth, Visitor visitor) {
+    int[] choice = choices[depth];
+    int blocks = blockCounts[depth];
+    int[] starts = blockStarts[depth];
+    int code = 1 << (order - 1);
+    int nextBlocks = 0;
+    int[] nextStarts = blockStarts[depth + 1];
+    int[] nextPlus = plusCounts[depth + 1];
+    for (int b = 0; b < blocks; b++) {
+      int size = starts[b + 1] - starts[b];
+      int minus = size - choice[b];
+      for (int position = starts[b] + minus; position < starts[b + 1]; position++) {
+        code |= 1 << (order - 2 - position);
+      }
+      if (minus > 0) {
+        nextStarts[nextBlocks] = starts[b];
+        nextPlus[nextBlocks++] = plusCounts[depth][b];
+      }
+      if (choice[b] > 0) {
+        nextStarts[nextBlocks] = starts[b] + minus;
+        nextPlus[nextBlocks++] = plusCounts[depth][b] + 1;
+      }
+    }
+    nextStarts[nextBlocks] = order - 1;
+    blockCounts[depth + 1] = nextBlocks;
+    if (resuming) {
+      // Rows are generated in increasing code order.
+      if (code < resumePath[depth]) {
+        return;
+      }
+      resuming = code == resumePath[depth];
+    }
+    nodes++;
+    rowCodes[depth] = code;
+    if (depth + 1 <= canonicalDepth && !isCanonical(depth + 1)) {
+      return;
+    }
+    placeRow(depth + 1, visitor);
+  }
+
+  /** Returns bit 1 if the row has +1 at core position (column position + 1). */
+  private int bit(int code, int position) {
+    return (code >>> (order - 2 - position)) & 1;
+  }
+
+  /**
+   * Returns whether no permutation of the first rows, with columns re-sorted, gives a
+   * lexicographically smaller sequence of rows.
+   */
+  boolean isCanonical(int rows) {
+    int blocks = blockCounts[rows];
+    int[] starts = blockStarts[rows];
+    // Column vector of each block, top row most significant, with its width.
+    int[] vectors = new int[blocks];
+    int[] sizes = new int[blocks];
+    for (int b = 0; b < blocks; b++) {
+      for (int row = 0; row < rows; row++) {
+        vectors[b] = vectors[b] << 1 | bit(rowCodes[row], starts[b]);
+      }
+      sizes[b] = starts[b + 1] - starts[b];
+    }
+    int[] permutation = new int[rows];
+    for (int i = 0; i < rows; i++) {
+      permutation[i] = i;
+    }
+    long[] permuted = new long[blocks];
+    while (nextPermutation(permutation)) {
+      for (int b = 0; b < blocks; b++) {
+        int vector = 0;
+        for (int row = 0; row < rows; row++) {
+          vector = vector << 1 | (vectors[b] >>> (rows - 1 - permutation[row])) & 1;
+        }
+        permuted[b] = (long) vector << 32 | sizes[b];
+      }
+      Arrays.sort(permuted);
+      if (compareRows(rows, vectors, sizes, permuted) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compares the rows of the current prefix with those of the permuted, sorted columns,
+   * row by row from the top and column by column from the left.
+   */
+  private static int compareRows(int rows, int[] vectors, int[] sizes, long[] permuted) {
+    for (int row = 0; row < rows; row++) {
+      int shift = rows - 1 - row;
+      int b = 0;
+      int c = 0;
+      int usedB = 0;
+      int usedC = 0;
+      while (b < vectors.length) {
+        int current = (vectors[b] >>> shift) & 1;
+        int other = (int) (permuted[c] >>> 32 >>> shift) & 1;
+        if (current != other) {
+          return current - other;
+        }
+        int step = Math.min(sizes[b] - usedB, (int) permuted[c] - usedC);
+        usedB += step;
+        usedC += step;
+        if (usedB == sizes[b]) {
+          b++;
+          usedB = 0;
+        }
+        if (usedC == (int) permuted[c]) {
+          c++;
+          usedC = 0;
+        }
+      }
+    }
+    return 0;
+  }
+
+  /** Advances to the next permutation in lexicographic order, or returns false. */
+  private static boolean nextPermutation(int[] values) {
+    int i = values.length - 2;
+    while (i >= 0 && values[i] >= values[i + 1]) {
+      i--;
+    }
+    if (i < 0) {
+      return false;
+    }
+    int j = values.length - 1;
+    while (values[j] <= values[i]) {
+      j--;
+    }
+    int swap = values[i];
+    values[i] = values[j];
+    values[j] = swap;
+    for (int left = i + 1, right = values.length - 1; left < right; left++, right--) {
+      swap = values[left];
+      values[left] = values[right];
+      values[right] = swap;
+    }
+    return true;
+  }
+}
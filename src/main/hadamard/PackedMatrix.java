@@ -0,0 +1,211 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A square matrix of +1/-1 entries packed 64 entries to a long, one long[] per row.
+ * Column c of a row lives in bit (c % 64) of word (c / 64); a set bit means -1.
+ * Bits past the order are always clear, so the inner product of two rows is
+ * n - 2 * popcount(a XOR b).
+ */
+public class PackedMatrix implements MatrixView {
+  private final int order;
+  private final long[][] rows;
+
+  public static int wordsPerRow(int order) {
+    return (order + 63) >>> 6;
+  }
+
+  /** Packs a dense matrix, which must hold only +1 and -1 entries. */
+  public static PackedMatrix fromMatrix(Matrix matrix) {
+    int order = matrix.size();
+    long[][] rows = new long[order][wordsPerRow(order)];
+    for (int row = 0; row < order; row++) {
+      int[] values = matrix.row(row);
+      long[] words = rows[row];
+      for (int column = 0; column < order; column++) {
+        int value = values[column];
+        Preconditions.checkState(value == 1 || value == -1,
+            "Entry (%s, %s) is %s, not +1/-1", row, column, value);
+        if (value == -1) {
+          words[column >>> 6] |= 1L << column;
+        }
+      }
+    }
+    return new PackedMatrix(order, rows);
+  }
+
+  /** Packs any view, which must hold only +1 and -1 entries. */
+  public static PackedMatrix fromView(MatrixView view) {
+    if (view instanceof Matrix) {
+      return fromMatrix((Matrix) view);
+    }
+    int order = view.size();
+    long[][] rows = new long[order][wordsPerRow(order)];
+    for (int row = 0; row < order; row++) {
+      Preconditions.checkState(view.packRow(row, rows[row]), "Row %s is not +1/-1", row);
+    }
+    return new PackedMatrix(order, rows);
+  }
+
+  private PackedMatrix(int order, long[][] rows) {
+    this.order = order;
+    this.rows = rows;
+  }
+
+  @Override
+  public int size() {
+    return order;
+  }
+
+  @Override
+  public int at(int row, int column) {
+    return (rows[row][column >>> 6] & (1L << column)) == 0 ? 1 : -1;
+  }
+
+  @Override
+  public boolean packRow(int row, long[] words) {
+    System.arraycopy(rows[row], 0, words, 0, rows[row].length);
+    return true;
+  }
+
+  /** Returns the packed words of a row.  Callers must not modify them. */
+  public long[] row(int row) {
+    return rows[row];
+  }
+
+  public Row getRow(int row) {
+    return Row.fromPacked(order, rows[row]);
+  }
+
+  public int dot(int rowA, int rowB) {
+    return order - 2 * numDifferences(rows[rowA], rows[rowB]);
+  }
+
+  public int numDifferences(int rowA, int rowB) {
+    return numDifferences(rows[rowA], rows[rowB]);
+  }
+
+  static int numDifferences(long[] a, long[] b) {
+    int differences = 0;
+    for (int word = 0; word < a.length; word++) {
+      differences += Long.bitCount(a[word] ^ b[word]);
+    }
+    return differences;
+  }
+
+  /** A +1/-1 matrix is Hadamard when every pair of distinct rows is orthogonal. */
+  public boolean isHadamard() {
+    return ParallelHadamardVerifier.getDefault().verify(this).isHadamard();
+  }
+
+  /** Transposes 64x64 bit blocks at a time. */
+  public PackedMatrix transpose() {
+    int words = wordsPerRow(order);
+    long[][] result = new long[order][words];
+    long[] block = new long[64];
+    for (int blockRow = 0; blockRow < words; blockRow++) {
+      for (int blockColumn = 0; blockColumn < words; blockColumn++) {
+        for (int i = 0; i < 64; i++) {
+          int row = (blockRow << 6) + i;
+          block[i] = row < order ? rows[row][blockColumn] : 0;
+        }
+        transpose64(block);
+        for (int i = 0; i < 64; i++) {
+          int row = (blockColumn << 6) + i;
+          if (row < order) {
+            result[row][blockRow] = block[i];
+          }
+        }
+      }
+    }
+    return new PackedMatrix(order, result);
+  }
+
+  /**
+   * Transposes a 64x64 bit matrix in place, where bit c of block[r] is entry (r, c).
+   * Swaps successively smaller off-diagonal sub-blocks (Hacker's Delight 7-3).
+   */
+  static void transpose64(long[] block) {
+    long mask = 0x00000000FFFFFFFFL;
+    for (int j = 32; j != 0; j >>>= 1, mask ^= (mask << j)) {
+      for (int k = 0; k < 64; k = (k + j + 1) & ~j) {
+        long t = ((block[k] >>> j) ^ block[k + j]) & mask;
+        block[k] ^= t << j;
+        block[k + j] ^= t;
+      }
+    }
+  }
+
+  public PackedMatrix negate() {
+    int words = wordsPerRow(order);
+    long lastWordMask = lastWordMask(order);
+    long[][] result = new long[order][words];
+    for (int row = 0; row < order; row++) {
+      for (int word = 0; word < words; word++) {
+        result[row][word] = ~rows[row][word];
+      }
+      result[row][words - 1] &= lastWordMask;
+    }
+    return new PackedMatrix(order, result);
+  }
+
+  /**
+   * Copies length bits starting at sourcePosition into destination starting at
+   * destinationPosition.  The destination bits must be clear.
+   */
+  static void copyBits(long[] source, int sourcePosition, long[] destination,
+      int destinationPosition, int length) {
+    for (int copied = 0; copied < length; copied += 64) {
+      int count = Math.min(64, length - copied);
+      long bits = getBits(source, sourcePosition + copied);
+      if (count < 64) {
+        bits &= (1L << count) - 1;
+      }
+      int position = destinationPosition + copied;
+      int word = position >>> 6;
+      int shift = position & 63;
+      destination[word] |= bits << shift;
+      if (shift != 0 && shift + count > 64) {
+        destination[word + 1] |= bits >>> (64 - shift);
+      }
+    }
+  }
+
+  /** Returns the 64 bits starting at position, reading clear bits past the end. */
+  static long getBits(long[] words, int position) {
+    int word = position >>> 6;
+    int shift = position & 63;
+    long bits = word < words.length ? words[word] >>> shift : 0;
+    if (shift != 0 && word + 1 < words.length) {
+      bits |= words[word + 1] << (64 - shift);
+    }
+    return bits;
+  }
+
+  /** Mask of the bits in the final word of a row that hold entries. */
+  static long lastWordMask(int order) {
+    int used = order & 63;
+    return used == 0 ? -1L : (1L << used) - 1;
+  }
+
+  @Override
+  public boolean equals(Object that) {
+    if (!(that instanceof PackedMatrix)) return false;
+    if (this == that) return true;
+    return order == ((PackedMatrix) that).order
+        && Arrays.deepEquals(rows, ((PackedMatrix) that).rows);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.deepHashCode(rows);
+  }
+
+  @Override
+  public String toString() {
+    return MatrixWriter.toString(this, MatrixWriter.Format.PLAIN);
+  }
+}
@@ -1,17 +1,25 @@
 package hadamard;
 
 import com.google.common.base.Preconditions;
+import com.google.common.math.IntMath;
 
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 public class Paley {
   public static void main(String args[]) throws Exception {
     new Paley().run();
   }
 
+  private final ParallelHadamardVerifier verifier;
+
+  public Paley() {
+    this(ParallelHadamardVerifier.getDefault());
+  }
+
+  public Paley(ParallelHadamardVerifier verifier) {
+    this.verifier = verifier;
+  }
+
   public void run() throws Exception {
     int[][] four = new int[][] {
         {1,1,1,1},
@@ -22,7 +30,7 @@ public class Paley {
     Matrix hadamard = new Matrix(four);
     System.out.println(hadamard);
     System.out.println(hadamard.transpose());
-    System.out.println(hadamard.times(hadamard.transpose()));
+    System.out.println(hadamard.timesTranspose(hadamard));
   }
 
   public void runToCheckTableOne() throws Exception {
@@ -70,21 +78,17 @@ public class Paley {
   }
 
   public void check(int constructionType, int p, int exponent, int expectedOrder) {
-    Matrix matrix = constructionType == 1
-        ? paleyConstructionOne(p, exponent)
-        : paleyConstructionTwo(p, exponent);
-    Preconditions.checkState(
-        matrix.isHadamard() && expectedOrder == matrix.size(),
-        String.format("Invalid %d^%d construction %d, expected order %d\n%s",
-          p, exponent, constructionType, expectedOrder, matrix));
+    PaleyMatrix matrix = constructionType == 1
+        ? lazyPaleyConstructionOne(p, exponent)
+        : lazyPaleyConstructionTwo(p, exponent);
+    HadamardVerifier.Result result = verifier.verify(matrix);
+    if (!result.isHadamard() || expectedOrder != matrix.size()) {
+      throw new IllegalStateException(
+          String.format("Invalid %d^%d construction %d, expected order %d: %s\n%s",
+              p, exponent, constructionType, expectedOrder, result, matrix));
+    }
   }
 
-  public static Set<Integer> ODD_PRIME_BELOW_TWO_HUNDRED = Set.of(3, 5, 7, 11,
-      13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71,
-      73, 79, 83, 89, 97,
-      101, 103, 107, 109, 113, 127, 131, 137, 139, 149, 151, 157,
-      163, 167, 173, 179, 181, 191, 193, 197, 199);
-
   /**
    * Construction One = q congruent 3 (mod 4) be the power of an odd prime.
    * We have possible qs of 3, 7, 11, 19, 23, 31, 43 ...
@@ -92,8 +96,8 @@ public class Paley {
    * Skew matrix (X = -X^T) (?)
    */
   public Matrix paleyConstructionOne(int p, int exponent) {
-    Preconditions.checkState(ODD_PRIME_BELOW_TWO_HUNDRED.contains(p), "p not prime?");
-    int q = (int) Math.pow(p, exponent);
+    checkOddPrime(p);
+    int q = IntMath.checkedPow(p, exponent);
     Preconditions.checkState(q % 4 == 3, "q mod 4 != 3");
 
     int[][] values = new int[q+1][q+1];
@@ -117,8 +121,8 @@ public class Paley {
    * Symmetric matrix (X = X^T) (?)
    */
   public Matrix paleyConstructionTwo(int p, int exponent) {
-    Preconditions.checkState(ODD_PRIME_BELOW_TWO_HUNDRED.contains(p), "p not prime?");
-    int q = (int) Math.pow(p, exponent);
+    checkOddPrime(p);
+    int q = IntMath.checkedPow(p, exponent);
     Preconditions.checkState(q % 4 == 1, "q mod 4 != 1");
 
     int[][] conferenceValues = new int[q+1][q+1];
@@ -141,43 +145,35 @@ public class Paley {
     return new Matrix(values);
   }
 
-  private void fillJacobsthalMatrix(int p, int exponent, int[][] values, int startRow, int startColumn) {
-    int q = (int) Math.pow(p, exponent);
-
-    if (exponent == 1) {
-      Set<Integer> galoisFieldQuadraticResidues = getPrimeGaloisFieldQuadraticResidues(q);
-      for (int row = 0; row < q; row++) {
-        for (int column = 0; column < q; column++) {
-          int operand = ((row - column) + q) % q;
-          int value = operand == 0 ? 0 : (galoisFieldQuadraticResidues.contains(operand) ? 1 : -1);
-          values[startRow + row][startColumn + column] = value;
-        }
-      }
-    } else {
-      GaloisField gf = new GaloisField(p, exponent);
-      List<Polynomial> fieldValues = gf.getFieldValues();
-      Set<Polynomial> galoisFieldQuadraticResidues = gf.getQuadraticResidues();
-
-      for (int row = 0; row < q; row++) {
-        for (int column = 0; column < q; column++) {
-          Polynomial difference = fieldValues.get(row).minus(fieldValues.get(column))
-              .coefficientModulo(p);
-          int value = difference.isZero() ? 0 :
-              (galoisFieldQuadraticResidues.contains(difference) ? 1 : -1);
-          values[startRow + row][startColumn + column] = value;
-        }
-      }
-    }
+  /** Construction one as a PaleyMatrix, which computes entries on demand. */
+  public PaleyMatrix lazyPaleyConstructionOne(int p, int exponent) {
+    checkOddPrime(p);
+    GaloisField gf = new GaloisField(p, exponent);
+    Preconditions.checkState(gf.getOrder() % 4 == 3, "q mod 4 != 3");
+    return PaleyMatrix.constructionOne(gf);
+  }
+
+  /** Construction two as a PaleyMatrix, which computes entries on demand. */
+  public PaleyMatrix lazyPaleyConstructionTwo(int p, int exponent) {
+    checkOddPrime(p);
+    GaloisField gf = new GaloisField(p, exponent);
+    Preconditions.checkState(gf.getOrder() % 4 == 1, "q mod 4 != 1");
+    return PaleyMatrix.constructionTwo(gf);
+  }
+
+  private static void checkOddPrime(int p) {
+    Preconditions.checkState(p % 2 == 1 && IntMath.isPrime(p), "p = %s not an odd prime", p);
   }
 
-  private Set<Integer> getPrimeGaloisFieldQuadraticResidues(int q) {
-    Set<Integer> galoisFieldQuadraticResidues = new HashSet<>();
-    for (int i = 1; i < (q + 1) / 2; i++) {
-      int square = ((int) Math.pow(i, 2)) % q;
-      if (square != 0) {
-        galoisFieldQuadraticResidues.add(square);
+  private void fillJacobsthalMatrix(int p, int exponent, int[][] values, int startRow, int startColumn) {
+    // Element i of the field is encoded as i, so each entry is a couple of lookups.
+    GaloisField gf = new GaloisField(p, exponent);
+    int q = gf.getOrder();
+    for (int row = 0; row < q; row++) {
+      int[] valuesRow = values[startRow + row];
+      for (int column = 0; column < q; column++) {
+        valuesRow[startColumn + column] = gf.quadraticCharacter(gf.subtract(row, column));
       }
     }
-    return galoisFieldQuadraticResidues;
   }
 }
@@ -3,6 +3,7 @@ package hadamard;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.math.IntMath;
 
 import java.util.Collection;
 import java.util.List;
@@ -16,7 +17,6 @@ public class PaleyConstructionParameters {
     new PaleyConstructionParameters().generateConstructions();
   }
 
-  static int MAX_POWER = 10;
   static int MAX_ORDER = 200;
 
   static class ConstructionParameters {
@@ -30,29 +30,42 @@ public class PaleyConstructionParameters {
       this.p = p;
       this.k = k;
     }
+
+    int getOrder() {
+      int q = IntMath.checkedPow(p, k);
+      return constructionMethod == ConstructionMethod.ONE ? q + 1 : 2 * (q + 1);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s %d^%d", constructionMethod, p, k);
+    }
   }
 
-  public void generateConstructions() {
+  /** Returns every Paley construction of order at most maxOrder, keyed by order. */
+  static Multimap<Integer, ConstructionParameters> generateParameters(int maxOrder) {
     Multimap<Integer, ConstructionParameters> params = ArrayListMultimap.create();
-    for (int p : Paley.ODD_PRIME_BELOW_TWO_HUNDRED) {
-      for (int k = 1; k <= MAX_POWER; k++) {
-        double qDouble = Math.pow(p, k);
-        if (qDouble > 10 * MAX_ORDER) {
-          continue;
-        }
-        int q = (int) qDouble;
-        if (q % 4 == 3) {
-          params.put(q + 1,
-              new ConstructionParameters(ConstructionParameters.ConstructionMethod.ONE, p, k));
-        } else if (q % 4 == 1) {
-          params.put(2 * (q + 1),
-              new ConstructionParameters(ConstructionParameters.ConstructionMethod.TWO, p, k));
-        }
+    for (int q = 3; q < maxOrder; q += 2) {
+      PrimePowers.PrimePower primePower = PrimePowers.decompose(q);
+      if (primePower == null) {
+        continue;
+      }
+      int p = (int) primePower.getPrime();
+      int k = primePower.getExponent();
+      if (q % 4 == 3) {
+        params.put(q + 1,
+            new ConstructionParameters(ConstructionParameters.ConstructionMethod.ONE, p, k));
+      } else if (q % 4 == 1 && 2 * (q + 1) <= maxOrder) {
+        params.put(2 * (q + 1),
+            new ConstructionParameters(ConstructionParameters.ConstructionMethod.TWO, p, k));
       }
     }
+    return params;
+  }
 
+  public void generateConstructions() {
+    Multimap<Integer, ConstructionParameters> params = generateParameters(MAX_ORDER);
     List<Integer> orders = params.keys().elementSet().stream()
-        .filter(order -> order <= MAX_ORDER)
         .sorted()
         .toList();
 
@@ -0,0 +1,100 @@
+package hadamard;
+
+import java.util.Arrays;
+
+/**
+ * A read-only Paley matrix whose entries are computed on demand from a GaloisField's
+ * subtraction and quadratic-character tables.  Each of those has at most q entries, so
+ * the matrix needs O(q) memory rather than a dense (q + 1)^2 or (2q + 2)^2 array.
+ *
+ * Both constructions are built from the (q + 1) x (q + 1) matrix C that borders the
+ * Jacobsthal matrix chi(a - b) with ones and has a zero corner.  Construction one is
+ * C with its corner set to 1 and -1 subtracted along the rest of the diagonal.
+ * Construction two is the block matrix
+ *    C + I   C - I
+ *    C - I  -C - I
+ * Entries match Paley.paleyConstructionOne and paleyConstructionTwo.
+ */
+public class PaleyMatrix implements MatrixView {
+  private final GaloisField field;
+  private final int q;
+  private final int order;
+  private final boolean constructionTwo;
+
+  public static PaleyMatrix constructionOne(GaloisField field) {
+    return new PaleyMatrix(field, false);
+  }
+
+  public static PaleyMatrix constructionTwo(GaloisField field) {
+    return new PaleyMatrix(field, true);
+  }
+
+  private PaleyMatrix(GaloisField field, boolean constructionTwo) {
+    this.field = field;
+    this.q = field.getOrder();
+    this.order = constructionTwo ? Math.multiplyExact(2, q + 1) : q + 1;
+    this.constructionTwo = constructionTwo;
+  }
+
+  public GaloisField getField() {
+    return field;
+  }
+
+  public boolean isConstructionTwo() {
+    return constructionTwo;
+  }
+
+  @Override
+  public int size() {
+    return order;
+  }
+
+  /** Entry of C, the Jacobsthal matrix bordered by ones with a zero corner. */
+  private int conference(int row, int column) {
+    if (row == 0) {
+      return column == 0 ? 0 : 1;
+    } else if (column == 0) {
+      return 1;
+    }
+    return field.quadraticCharacter(field.subtract(row - 1, column - 1));
+  }
+
+  @Override
+  public int at(int row, int column) {
+    if (!constructionTwo) {
+      if (row == 0 || column == 0) {
+        return 1;
+      }
+      return row == column ? -1 : conference(row, column);
+    }
+    int blockRow = row > q ? 1 : 0;
+    int blockColumn = column > q ? 1 : 0;
+    int i = row - blockRow * (q + 1);
+    int j = column - blockColumn * (q + 1);
+    int value = conference(i, j);
+    int identity = i == j ? 1 : 0;
+    if (blockRow == 0 && blockColumn == 0) {
+      return value + identity;
+    } else if (blockRow == 1 && blockColumn == 1) {
+      return -value - identity;
+    }
+    return value - identity;
+  }
+
+  @Override
+  public boolean packRow(int row, long[] words) {
+    Arrays.fill(words, 0L);
+    int order = size();
+    for (int column = 0; column < order; column++) {
+      if (at(row, column) == -1) {
+        words[column >>> 6] |= 1L << column;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return MatrixWriter.toString(this, MatrixWriter.Format.PLAIN);
+  }
+}
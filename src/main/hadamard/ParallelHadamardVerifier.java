@@ -0,0 +1,216 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the row-pair orthogonality check across a fork-join pool.
+ *
+ * Rows are grouped into blocks sized so that two blocks of packed rows stay cache
+ * resident, and each task checks the pairs between one block and a later (or the same)
+ * block.  The leading block is checked on the calling thread first, so matrices that
+ * fail early never reach the pool.  Workers publish the position of the first failure
+ * they find and skip everything after the earliest one published, so the result is
+ * identical to HadamardVerifier's.  A MappedMatrix is not packed: tiles compare its rows
+ * in the mapping.
+ *
+ * The default instance uses the hadamard.verifier.parallelism system property, or one
+ * thread per processor.
+ */
+public class ParallelHadamardVerifier {
+  private static final int BLOCK_BYTES = 64 * 1024;
+  private static final int MIN_BLOCK_SIZE = 64;
+
+  private static ParallelHadamardVerifier defaultVerifier;
+
+  public static synchronized ParallelHadamardVerifier getDefault() {
+    if (defaultVerifier == null) {
+      defaultVerifier = new ParallelHadamardVerifier(Integer.getInteger(
+          "hadamard.verifier.parallelism", Runtime.getRuntime().availableProcessors()));
+    }
+    return defaultVerifier;
+  }
+
+  private final ForkJoinPool pool;
+  private final int fixedBlockSize;
+
+  public ParallelHadamardVerifier(int parallelism) {
+    this(new ForkJoinPool(parallelism));
+  }
+
+  public ParallelHadamardVerifier(ForkJoinPool pool) {
+    this(pool, 0);
+  }
+
+  /** A blockSize of 0 sizes blocks from the order. */
+  ParallelHadamardVerifier(ForkJoinPool pool, int blockSize) {
+    Preconditions.checkState(blockSize >= 0);
+    this.pool = pool;
+    this.fixedBlockSize = blockSize;
+  }
+
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  int blockSize(int order) {
+    if (fixedBlockSize > 0) {
+      return fixedBlockSize;
+    }
+    int rowBytes = 8 * PackedMatrix.wordsPerRow(order);
+    return Math.max(MIN_BLOCK_SIZE, BLOCK_BYTES / rowBytes);
+  }
+
+  public HadamardVerifier.Result verify(MatrixView matrix) {
+    HadamardVerifier.Result circulant = CirculantVerifier.verify(matrix);
+    if (circulant != null) {
+      return circulant;
+    }
+    int order = matrix.size();
+    int blockSize = blockSize(order);
+    long[][] rows = HadamardVerifier.rowsFor(matrix);
+    HadamardVerifier.Result leading =
+        HadamardVerifier.verifyLeadingRows(matrix, rows, Math.min(order, blockSize));
+    if (!leading.isHadamard() || order <= blockSize) {
+      return leading;
+    }
+    Verification verification = new Verification(matrix, rows, blockSize);
+    pool.invoke(verification);
+    return verification.result();
+  }
+
+  /**
+   * Positions in HadamardVerifier's visiting order: pair (i, j) with i < j has key
+   * j * (n + 1) + i + 1, and packing row j has key j * (n + 1).
+   */
+  private static class Verification extends RecursiveAction {
+    private final MatrixView matrix;
+    // Null when rows are read from a MappedMatrix.
+    private final long[][] rows;
+    private final MappedMatrix mapped;
+    private final int order;
+    private final int blockSize;
+    private final AtomicInteger firstInvalidRow;
+    private final AtomicLong firstFailure = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger firstFailureDotProduct = new AtomicInteger();
+
+    Verification(MatrixView matrix, long[][] rows, int blockSize) {
+      this.matrix = matrix;
+      this.rows = rows;
+      this.mapped = matrix instanceof MappedMatrix ? (MappedMatrix) matrix : null;
+      this.order = matrix.size();
+      this.blockSize = blockSize;
+      this.firstInvalidRow = new AtomicInteger(order);
+    }
+
+    @Override
+    protected void compute() {
+      if (mapped == null) {
+        List<ForkJoinTask<?>> packing = new ArrayList<>();
+        for (int start = blockSize; start < order; start += blockSize) {
+          packing.add(new PackBlock(start, Math.min(order, start + blockSize)));
+        }
+        invokeAll(packing);
+      }
+
+      int limit = firstInvalidRow.get();
+      List<ForkJoinTask<?>> tiles = new ArrayList<>();
+      for (int startB = blockSize; startB < limit; startB += blockSize) {
+        for (int startA = 0; startA <= startB; startA += blockSize) {
+          tiles.add(new Tile(startA, startB, Math.min(limit, startB + blockSize)));
+        }
+      }
+      invokeAll(tiles);
+    }
+
+    long key(int rowA, int rowB) {
+      return (long) rowB * (order + 1) + rowA + 1;
+    }
+
+    synchronized void recordFailure(int rowA, int rowB, int dotProduct) {
+      if (key(rowA, rowB) < firstFailure.get()) {
+        firstFailureDotProduct.set(dotProduct);
+        firstFailure.set(key(rowA, rowB));
+      }
+    }
+
+    HadamardVerifier.Result result() {
+      long failure = firstFailure.get();
+      if (failure != Long.MAX_VALUE) {
+        int rowB = (int) (failure / (order + 1));
+        int rowA = (int) (failure % (order + 1)) - 1;
+        return HadamardVerifier.Result.notOrthogonal(rowA, rowB, firstFailureDotProduct.get());
+      } else if (firstInvalidRow.get() < order) {
+        return HadamardVerifier.Result.invalidEntry(firstInvalidRow.get());
+      }
+      return HadamardVerifier.Result.HADAMARD;
+    }
+
+    private class PackBlock extends RecursiveAction {
+      private final int start;
+      private final int end;
+
+      PackBlock(int start, int end) {
+        this.start = start;
+        this.end = end;
+      }
+
+      @Override
+      protected void compute() {
+        PackedMatrix packed = matrix instanceof PackedMatrix ? (PackedMatrix) matrix : null;
+        int words = PackedMatrix.wordsPerRow(order);
+        for (int row = start; row < end; row++) {
+          if (packed != null) {
+            rows[row] = packed.row(row);
+          } else {
+            rows[row] = new long[words];
+            if (!matrix.packRow(row, rows[row])) {
+              firstInvalidRow.accumulateAndGet(row, Math::min);
+              return;
+            }
+          }
+        }
+      }
+    }
+
+    /** Pairs (i, j) with i in [startA, startA + blockSize), j in [startB, endB), i < j. */
+    private class Tile extends RecursiveAction {
+      private final int startA;
+      private final int startB;
+      private final int endB;
+
+      Tile(int startA, int startB, int endB) {
+        this.startA = startA;
+        this.startB = startB;
+        this.endB = endB;
+      }
+
+      @Override
+      protected void compute() {
+        for (int rowB = startB; rowB < endB; rowB++) {
+          if (key(startA, rowB) > firstFailure.get()) {
+            return;
+          }
+          long[] wordsB = mapped == null ? rows[rowB] : null;
+          int endA = Math.min(rowB, startA + blockSize);
+          for (int rowA = startA; rowA < endA; rowA++) {
+            int differences = mapped == null
+                ? PackedMatrix.numDifferences(rows[rowA], wordsB)
+                : mapped.numDifferences(rowA, rowB);
+            if (2 * differences != order) {
+              recordFailure(rowA, rowB, order - 2 * differences);
+              return;
+            }
+          }
+        }
+      }
+    }
+  }
+}
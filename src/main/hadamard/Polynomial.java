@@ -46,6 +46,13 @@ public class Polynomial {
     return new Polynomial(coefficients);
   }
 
+  /** Creates a polynomial from coefficients, lowest degree first. */
+  public static Polynomial fromCoefficients(int... coefficients) {
+    Preconditions.checkState(coefficients.length <= MAX_NUM_COEFFICIENTS_SUPPORTED,
+        "Degree %s not supported", coefficients.length - 1);
+    return new Polynomial(Arrays.copyOf(coefficients, MAX_NUM_COEFFICIENTS_SUPPORTED));
+  }
+
   /**
    * A substring of an input polynomial string that should be parsed.
    */
@@ -0,0 +1,81 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+import com.google.common.math.LongMath;
+
+/**
+ * Prime-power decomposition for any positive long.  A prime power q = p^k has exactly
+ * one such form, found by trying each exponent k whose k-th root of q is an integer and
+ * testing the root with LongMath.isPrime.
+ */
+public class PrimePowers {
+  /** A prime p and exponent k >= 1. */
+  public static class PrimePower {
+    private final long prime;
+    private final int exponent;
+
+    PrimePower(long prime, int exponent) {
+      this.prime = prime;
+      this.exponent = exponent;
+    }
+
+    public long getPrime() {
+      return prime;
+    }
+
+    public int getExponent() {
+      return exponent;
+    }
+
+    /** Returns p^k, which fits in a long by construction. */
+    public long getValue() {
+      return LongMath.checkedPow(prime, exponent);
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (!(that instanceof PrimePower)) return false;
+      return prime == ((PrimePower) that).prime && exponent == ((PrimePower) that).exponent;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(prime) * 31 + exponent;
+    }
+
+    @Override
+    public String toString() {
+      return exponent == 1 ? Long.toString(prime) : prime + "^" + exponent;
+    }
+  }
+
+  /** Returns the decomposition of q as p^k for a prime p, or null if there is none. */
+  public static PrimePower decompose(long q) {
+    Preconditions.checkState(q > 0, "%s is not positive", q);
+    for (int exponent = 1; exponent < Long.SIZE && (1L << exponent) <= q; exponent++) {
+      long root = root(q, exponent);
+      if (power(root, exponent) == q && LongMath.isPrime(root)) {
+        return new PrimePower(root, exponent);
+      }
+    }
+    return null;
+  }
+
+  /** Returns floor(q^(1/k)). */
+  static long root(long q, int k) {
+    long root = (long) Math.pow(q, 1.0 / k);
+    // The double estimate can be off by one either way.
+    while (root > 1 && power(root, k) > q) {
+      root--;
+    }
+    while (power(root + 1, k) <= q) {
+      root++;
+    }
+    return root;
+  }
+
+  /** Returns base^k, saturating at Long.MAX_VALUE. */
+  private static long power(long base, int k) {
+    return LongMath.saturatedPow(base, k);
+  }
+}
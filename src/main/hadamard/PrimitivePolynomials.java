@@ -0,0 +1,130 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+import com.google.common.math.IntMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds primitive polynomials over GF(p), replacing the rings library for field
+ * construction.
+ *
+ * A monic polynomial f of degree k is primitive when x has multiplicative order
+ * p^k - 1 modulo f.  That many units only exist when GF(p)[x]/f is a field, so a
+ * primitive polynomial is also irreducible, and x generates the field's units.
+ *
+ * Polynomials modulo f are encoded as in GaloisField: base-p digits are coefficients,
+ * lowest degree first.  A modulus is given by the coefficients of f below its leading
+ * term.
+ */
+public class PrimitivePolynomials {
+  /**
+   * Returns the lower coefficients of the first monic primitive polynomial of the given
+   * degree, ordering candidates by their lower coefficients read as a base-p number with
+   * the constant term as the lowest digit.
+   */
+  public static int[] find(int p, int degree) {
+    Preconditions.checkState(degree >= 1, "degree %s < 1", degree);
+    int q = IntMath.checkedPow(p, degree);
+    List<Integer> orderPrimeFactors = primeFactors(q - 1);
+    int[] modulus = new int[degree];
+    for (int candidate = 0; candidate < q; candidate++) {
+      for (int i = 0, digits = candidate; i < degree; i++, digits /= p) {
+        modulus[i] = digits % p;
+      }
+      if (modulus[0] != 0 && isPrimitive(p, modulus, orderPrimeFactors)) {
+        return modulus;
+      }
+    }
+    throw new IllegalStateException(
+        String.format("No primitive polynomial of degree %d over GF(%d)", degree, p));
+  }
+
+  public static boolean isPrimitive(int p, int[] modulus) {
+    return isPrimitive(p, modulus, primeFactors(IntMath.checkedPow(p, modulus.length) - 1));
+  }
+
+  private static boolean isPrimitive(int p, int[] modulus, List<Integer> orderPrimeFactors) {
+    int unitOrder = IntMath.pow(p, modulus.length) - 1;
+    int[] scratch = new int[2 * modulus.length - 1];
+    int x = x(p, modulus);
+    if (power(p, modulus, x, unitOrder, scratch) != 1) {
+      return false;
+    }
+    for (int factor : orderPrimeFactors) {
+      if (power(p, modulus, x, unitOrder / factor, scratch) == 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the encoding of x reduced modulo the polynomial. */
+  static int x(int p, int[] modulus) {
+    return modulus.length > 1 ? p : Math.floorMod(-modulus[0], p);
+  }
+
+  static int power(int p, int[] modulus, int base, long exponent, int[] scratch) {
+    int result = 1;
+    while (exponent > 0) {
+      if ((exponent & 1) == 1) {
+        result = multiply(p, modulus, result, base, scratch);
+      }
+      base = multiply(p, modulus, base, base, scratch);
+      exponent >>= 1;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the encoded product a * b modulo the polynomial.  scratch must have room for
+   * 2 * degree - 1 coefficients.
+   */
+  static int multiply(int p, int[] modulus, int a, int b, int[] scratch) {
+    int degree = modulus.length;
+    Arrays.fill(scratch, 0);
+    for (int i = 0, aDigits = a; i < degree; i++, aDigits /= p) {
+      int aDigit = aDigits % p;
+      if (aDigit == 0) {
+        continue;
+      }
+      for (int j = 0, bDigits = b; j < degree; j++, bDigits /= p) {
+        scratch[i + j] = (int) ((scratch[i + j] + (long) aDigit * (bDigits % p)) % p);
+      }
+    }
+    // x^k = -(modulus[k-1] x^(k-1) + ... + modulus[0]), working down from the top.
+    for (int top = 2 * degree - 2; top >= degree; top--) {
+      int coefficient = scratch[top];
+      if (coefficient == 0) {
+        continue;
+      }
+      for (int i = 0; i < degree; i++) {
+        int target = top - degree + i;
+        scratch[target] = Math.floorMod(scratch[target] - (long) coefficient * modulus[i], p);
+      }
+    }
+    int result = 0;
+    for (int i = degree - 1; i >= 0; i--) {
+      result = result * p + scratch[i];
+    }
+    return result;
+  }
+
+  static List<Integer> primeFactors(int n) {
+    List<Integer> factors = new ArrayList<>();
+    for (int factor = 2; (long) factor * factor <= n; factor++) {
+      if (n % factor == 0) {
+        factors.add(factor);
+        while (n % factor == 0) {
+          n /= factor;
+        }
+      }
+    }
+    if (n > 1) {
+      factors.add(n);
+    }
+    return factors;
+  }
+}
@@ -1,15 +1,29 @@
 package hadamard;
 
+import com.google.common.base.Preconditions;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class Row {
+  // Longer rows do not fit a positive int summary.
+  static final int MAX_SUMMARY_LENGTH = 31;
+
   public static Row length(int length) {
     return new Row(length);
   }
 
   public static Row fromBits(int length, int x) {
-    return new Row(populateFromBits(length, x));
+    return new Row(populateFromBits(length, x), packBits(length, x));
+  }
+
+  /** Creates a row from PackedMatrix-style words, where a set bit means -1. */
+  public static Row fromPacked(int length, long[] words) {
+    int[] values = new int[length];
+    for (int column = 0; column < length; column++) {
+      values[column] = (words[column >>> 6] & (1L << column)) == 0 ? 1 : -1;
+    }
+    return new Row(values, words);
   }
 
   public static Row fromArray(int[] values) {
@@ -21,13 +35,22 @@ public class Row {
   }
 
   private final int[] cells;
+  // Packed form of cells, only kept for rows that own their cells.
+  private final long[] packed;
 
   private Row(int length) {
     cells = new int[length];
+    packed = null;
   }
 
   private Row(int[] values) {
     cells = values;
+    packed = null;
+  }
+
+  private Row(int[] values, long[] packed) {
+    cells = values;
+    this.packed = packed;
   }
 
   private Row(List<Integer> values) {
@@ -35,6 +58,7 @@ public class Row {
     for (int i = 0; i < values.size(); i++) {
       cells[i] = values.get(i);
     }
+    packed = null;
   }
 
   public int length() {
@@ -54,12 +78,25 @@ public class Row {
     return result;
   }
 
+  private static long[] packBits(int length, int x) {
+    long[] words = new long[PackedMatrix.wordsPerRow(length)];
+    for (int column = 0; column < length; column++) {
+      if (((x >> (length - 1 - column)) & 1) == 0) {
+        words[column >>> 6] |= 1L << column;
+      }
+    }
+    return words;
+  }
+
+  private boolean isPackedWith(Row that) {
+    return packed != null && that.packed != null && cells.length == that.cells.length;
+  }
+
   public int dot(Row that) {
-    int result = 0;
-    for (int column = 0; column < cells.length; column++) {
-      result += cells[column] * that.at(column);
+    if (isPackedWith(that)) {
+      return cells.length - 2 * PackedMatrix.numDifferences(packed, that.packed);
     }
-    return result;
+    return IntKernels.get().dot(cells, that.cells);
   }
 
   public int diffDescriptor(Row that) {
@@ -75,16 +112,15 @@ public class Row {
   }
 
   public int numDifferences(Row that) {
-    int numDifferences = 0;
-    for (int column = 0; column < cells.length; column++) {
-      if (cells[column] != that.at(column)) {
-        numDifferences++;
-      }
+    if (isPackedWith(that)) {
+      return PackedMatrix.numDifferences(packed, that.packed);
     }
-    return numDifferences;
+    return IntKernels.get().countDifferences(cells, that.cells);
   }
 
   public int getSummaryInt() {
+    Preconditions.checkState(cells.length <= MAX_SUMMARY_LENGTH,
+        "Row of %s entries too long for an int summary", cells.length);
     int shift = 0;
     int result = 0;
     for (int column = cells.length - 1; column >= 0; column--) {
@@ -108,15 +144,19 @@ public class Row {
     for (int column = 0; column < cells.length; column++) {
       newCells[column] = -cells[column];
     }
-    return new Row(newCells);
+    if (packed == null) {
+      return new Row(newCells);
+    }
+    long[] newPacked = new long[packed.length];
+    for (int word = 0; word < packed.length; word++) {
+      newPacked[word] = ~packed[word];
+    }
+    newPacked[packed.length - 1] &= PackedMatrix.lastWordMask(cells.length);
+    return new Row(newCells, newPacked);
   }
 
   @Override
   public String toString() {
-    String result = "";
-    for (int column = 0; column < cells.length; column++) {
-      result += String.format("%2d ", cells[column]);
-    }
-    return result;
+    return MatrixWriter.rowString(cells);
   }
 }
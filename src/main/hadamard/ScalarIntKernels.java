@@ -0,0 +1,51 @@
+package hadamard;
+
+class ScalarIntKernels extends IntKernels {
+  @Override
+  int dot(int[] a, int[] b) {
+    int result = 0;
+    for (int i = 0; i < a.length; i++) {
+      result += a[i] * b[i];
+    }
+    return result;
+  }
+
+  @Override
+  int countDifferences(int[] a, int[] b) {
+    int differences = 0;
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != b[i]) {
+        differences++;
+      }
+    }
+    return differences;
+  }
+
+  @Override
+  void add(int[] a, int[] b, int[] result) {
+    for (int i = 0; i < a.length; i++) {
+      result[i] = a[i] + b[i];
+    }
+  }
+
+  @Override
+  void subtract(int[] a, int[] b, int[] result) {
+    for (int i = 0; i < a.length; i++) {
+      result[i] = a[i] - b[i];
+    }
+  }
+
+  @Override
+  void negate(int[] a, int[] result) {
+    for (int i = 0; i < a.length; i++) {
+      result[i] = -a[i];
+    }
+  }
+
+  @Override
+  void addScaled(int scale, int[] values, int[] result, int start, int end) {
+    for (int i = start; i < end; i++) {
+      result[i] += scale * values[i];
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a search into shards that run as separate processes sharing a directory.
+ *
+ * CliqueSearch and OrderlySearch shards own the nodes at a fixed depth whose row prefix
+ * hashes to them (shardOf), WilliamsonSearch shards own every shardCount-th A candidate.
+ * Shard i of n appends one line per result to shard-i-of-n.txt, checkpoints to
+ * shard-i-of-n.ckpt, and creates shard-i-of-n.done when it finishes, so a killed shard
+ * can simply be started again.  Each checkpoint records the flushed length of the
+ * results, and a restarted shard first truncates them to it, so a line the kill cut
+ * short is never extended by the next result.  Results are sorted row codes joined by
+ * commas, or the four Williamson sequences in +/- form.  Merging collects the distinct
+ * lines of every shard into merged.txt.
+ *
+ * Usage:
+ *   ShardedSearch shard clique|orderly|williamson order shardIndex shardCount directory [canonicalDepth]
+ *   ShardedSearch launch clique|orderly|williamson order shardCount directory [canonicalDepth]
+ *   ShardedSearch merge directory
+ */
+public class ShardedSearch {
+  public static void main(String args[]) throws Exception {
+    switch (args[0]) {
+      case "shard":
+        runShard(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+            Integer.parseInt(args[4]), Paths.get(args[5]), canonicalDepth(args, 6));
+        break;
+      case "launch":
+        int results = launch(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+            Paths.get(args[4]), canonicalDepth(args, 5));
+        System.out.printf("%d distinct results\n", results);
+        break;
+      case "merge":
+        System.out.printf("%d distinct results\n", merge(Paths.get(args[1])));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown command " + args[0]);
+    }
+  }
+
+  static final String MERGED = "merged.txt";
+  // Depth of the row prefix that decides a clique or orderly node's shard.
+  static final int SHARD_DEPTH = 2;
+  static final int DEFAULT_CANONICAL_DEPTH = 5;
+
+  private static int canonicalDepth(String[] args, int index) {
+    return args.length > index ? Integer.parseInt(args[index]) : DEFAULT_CANONICAL_DEPTH;
+  }
+
+  /** Returns the shard, in [0, shardCount), owning the first length entries of path. */
+  static int shardOf(int[] path, int length, int shardCount) {
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + path[i];
+    }
+    return Math.floorMod(hash, shardCount);
+  }
+
+  static String shardName(int shardIndex, int shardCount) {
+    return String.format("shard-%d-of-%d", shardIndex, shardCount);
+  }
+
+  /** Runs one shard to completion, resuming from its checkpoint if there is one. */
+  public static void runShard(String search, int order, int shardIndex, int shardCount,
+      Path directory, int canonicalDepth) throws IOException {
+    Files.createDirectories(directory);
+    String name = shardName(shardIndex, shardCount);
+    Path done = directory.resolve(name + ".done");
+    if (Files.exists(done)) {
+      return;
+    }
+    Checkpointer checkpointer = new Checkpointer(directory.resolve(name + ".ckpt"));
+    // Without a checkpoint the search starts over, so none of the output is kept.
+    Checkpoint saved = Checkpoint.read(checkpointer.getFile());
+    long kept = saved == null ? 0 : saved.getOutputBytes();
+    Path results = directory.resolve(name + ".txt");
+    try (FileChannel channel = FileChannel.open(results, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+        BufferedWriter writer = new BufferedWriter(
+            new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+      Preconditions.checkState(channel.size() >= kept, "%s holds %s bytes, checkpoint says %s",
+          results, channel.size(), kept);
+      channel.truncate(kept);
+      channel.position(kept);
+      checkpointer.setOutput(() -> {
+        try {
+          writer.flush();
+          channel.force(true);
+          return channel.size();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      switch (search) {
+        case "clique": {
+          CompatibilityGraph graph = CompatibilityGraph.normalizedRows(order);
+          CliqueSearch clique = new CliqueSearch(graph);
+          clique.setShard(shardIndex, shardCount, Math.min(SHARD_DEPTH, order - 1));
+          clique.setCheckpointer(checkpointer);
+          clique.enumerate(vertices -> {
+            int[] codes = new int[vertices.length];
+            for (int i = 0; i < vertices.length; i++) {
+              codes[i] = graph.code(vertices[i]);
+            }
+            return writeLine(writer, codes);
+          });
+          break;
+        }
+        case "orderly": {
+          OrderlySearch orderly = new OrderlySearch(order, canonicalDepth);
+          orderly.setShard(shardIndex, shardCount, Math.min(SHARD_DEPTH, order - 1));
+          orderly.setCheckpointer(checkpointer);
+          orderly.enumerate(codes -> writeLine(writer, codes));
+          break;
+        }
+        case "williamson": {
+          WilliamsonSearch williamson = new WilliamsonSearch(order / 4, ForkJoinPool.commonPool());
+          williamson.setShard(shardIndex, shardCount);
+          williamson.setCheckpointer(checkpointer);
+          WilliamsonSearch.Sequences sequences = williamson.find();
+          if (sequences != null) {
+            writer.write(sequences.toString().trim().replace('\n', ' '));
+            writer.newLine();
+          }
+          break;
+        }
+        default:
+          throw new IllegalArgumentException("Unknown search " + search);
+      }
+      writer.flush();
+      channel.force(true);
+    }
+    Files.createFile(done);
+  }
+
+  private static boolean writeLine(BufferedWriter writer, int[] codes) {
+    int[] sorted = codes.clone();
+    Arrays.sort(sorted);
+    try {
+      writer.write(Arrays.stream(sorted).mapToObj(Integer::toString)
+          .collect(Collectors.joining(",")));
+      writer.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Runs every shard as its own JVM on this machine, waits for them and merges the
+   * results.  Returns the number of distinct results.
+   */
+  public static int launch(String search, int order, int shardCount, Path directory,
+      int canonicalDepth) throws IOException, InterruptedException {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    List<Process> processes = new ArrayList<>();
+    for (int shard = 0; shard < shardCount; shard++) {
+      processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+          ShardedSearch.class.getName(), "shard", search, Integer.toString(order),
+          Integer.toString(shard), Integer.toString(shardCount), directory.toString(),
+          Integer.toString(canonicalDepth))
+          .inheritIO()
+          .start());
+    }
+    for (int shard = 0; shard < shardCount; shard++) {
+      int exitCode = processes.get(shard).waitFor();
+      Preconditions.checkState(exitCode == 0, "Shard %s exited with %s", shard, exitCode);
+    }
+    return merge(directory);
+  }
+
+  /**
+   * Writes the distinct result lines of every shard, sorted, to merged.txt and returns
+   * their number.  Shards that have not finished are merged too, with a warning.
+   */
+  public static int merge(Path directory) throws IOException {
+    TreeSet<String> results = new TreeSet<>();
+    try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, "shard-*.txt")) {
+      for (Path shard : shards) {
+        String name = shard.getFileName().toString();
+        Path done = shard.resolveSibling(name.substring(0, name.length() - 4) + ".done");
+        if (!Files.exists(done)) {
+          System.err.printf("Warning: %s has not finished\n", name);
+        }
+        for (String line : Files.readAllLines(shard, StandardCharsets.UTF_8)) {
+          if (!line.isEmpty()) {
+            results.add(line);
+          }
+        }
+      }
+    }
+    Path merged = directory.resolve(MERGED);
+    Path temporary = directory.resolve(MERGED + ".tmp");
+    Files.write(temporary, results, StandardCharsets.UTF_8);
+    Files.move(temporary, merged, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    return results.size();
+  }
+}
@@ -0,0 +1,61 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The Sylvester Hadamard matrix of order 2^k, computed on demand.  Doubling
+ *    H   H
+ *    H  -H
+ * k times from [1] gives entry (i, j) = (-1)^popcount(i AND j).
+ */
+public class SylvesterMatrix implements MatrixView {
+  private final int order;
+
+  public static SylvesterMatrix ofOrder(int order) {
+    Preconditions.checkState(order > 0 && Integer.bitCount(order) == 1,
+        "Sylvester order %s is not a power of two", order);
+    return new SylvesterMatrix(order);
+  }
+
+  /** Returns the lazy doubling [H H; H -H] of any matrix. */
+  public static KroneckerMatrix doubling(MatrixView matrix) {
+    return KroneckerMatrix.of(ofOrder(2), matrix);
+  }
+
+  private SylvesterMatrix(int order) {
+    this.order = order;
+  }
+
+  @Override
+  public int size() {
+    return order;
+  }
+
+  @Override
+  public int at(int row, int column) {
+    return (Integer.bitCount(row & column) & 1) == 0 ? 1 : -1;
+  }
+
+  /**
+   * Columns in one word share their high bits, so each word is the pattern for the low
+   * six bits, complemented when the high bits contribute odd parity.
+   */
+  @Override
+  public boolean packRow(int row, long[] words) {
+    Arrays.fill(words, 0L);
+    long lowPattern = 0;
+    for (int column = 0; column < Math.min(order, 64); column++) {
+      if ((Integer.bitCount(row & column) & 1) == 1) {
+        lowPattern |= 1L << column;
+      }
+    }
+    for (int word = 0; word < PackedMatrix.wordsPerRow(order); word++) {
+      boolean odd = (Integer.bitCount(row & (word << 6)) & 1) == 1;
+      words[word] = odd ? ~lowPattern : lowPattern;
+    }
+    words[words.length - 1] &= PackedMatrix.lastWordMask(order);
+    return true;
+  }
+}
@@ -0,0 +1,94 @@
+package hadamard;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/** IntKernels on the preferred SIMD width, finishing each loop's tail with scalar code. */
+class VectorIntKernels extends IntKernels {
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  @Override
+  boolean isSupported() {
+    return SPECIES.vectorBitSize() >= 128;
+  }
+
+  @Override
+  int dot(int[] a, int[] b) {
+    IntVector sums = IntVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+      sums = IntVector.fromArray(SPECIES, a, i).mul(IntVector.fromArray(SPECIES, b, i)).add(sums);
+    }
+    int result = sums.reduceLanes(VectorOperators.ADD);
+    for (; i < a.length; i++) {
+      result += a[i] * b[i];
+    }
+    return result;
+  }
+
+  @Override
+  int countDifferences(int[] a, int[] b) {
+    int differences = 0;
+    int i = 0;
+    for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+      differences += IntVector.fromArray(SPECIES, a, i)
+          .compare(VectorOperators.NE, IntVector.fromArray(SPECIES, b, i))
+          .trueCount();
+    }
+    for (; i < a.length; i++) {
+      if (a[i] != b[i]) {
+        differences++;
+      }
+    }
+    return differences;
+  }
+
+  @Override
+  void add(int[] a, int[] b, int[] result) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, a, i).add(IntVector.fromArray(SPECIES, b, i))
+          .intoArray(result, i);
+    }
+    for (; i < a.length; i++) {
+      result[i] = a[i] + b[i];
+    }
+  }
+
+  @Override
+  void subtract(int[] a, int[] b, int[] result) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, a, i).sub(IntVector.fromArray(SPECIES, b, i))
+          .intoArray(result, i);
+    }
+    for (; i < a.length; i++) {
+      result[i] = a[i] - b[i];
+    }
+  }
+
+  @Override
+  void negate(int[] a, int[] result) {
+    int i = 0;
+    for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, a, i).neg().intoArray(result, i);
+    }
+    for (; i < a.length; i++) {
+      result[i] = -a[i];
+    }
+  }
+
+  @Override
+  void addScaled(int scale, int[] values, int[] result, int start, int end) {
+    int i = start;
+    for (int bound = start + SPECIES.loopBound(end - start); i < bound; i += SPECIES.length()) {
+      IntVector.fromArray(SPECIES, values, i).mul(scale)
+          .add(IntVector.fromArray(SPECIES, result, i))
+          .intoArray(result, i);
+    }
+    for (; i < end; i++) {
+      result[i] += scale * values[i];
+    }
+  }
+}
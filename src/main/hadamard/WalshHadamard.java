@@ -0,0 +1,240 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The fast Walsh-Hadamard transform: multiplies a vector of length n = 2^k by the
+ * Sylvester matrix of order n in place with n log n additions.
+ *
+ * Stage h replaces each pair (x[i], x[i + h]), i with bit h clear, by
+ * (x[i] + x[i + h], x[i] - x[i + h]).  The stages below BLOCK run one cache-sized block
+ * at a time, so only the last log(n / BLOCK) stages stream the whole vector.  The result
+ * is unnormalized: transforming twice multiplies by n.  int and long sums wrap on
+ * overflow like Matrix.times.
+ */
+public class WalshHadamard {
+  // Entries per block of the block-local stages, and per parallel chunk of later ones.
+  static final int BLOCK = 1024;
+  // Entries a parallel task handles before it stops splitting.
+  private static final int TASK_ENTRIES = 16 * BLOCK;
+
+  /** Applies the butterflies (x[i], x[i + half]) for i in [start, start + count). */
+  private interface Butterflies {
+    void apply(int start, int count, int half);
+  }
+
+  private static Butterflies butterflies(int[] values, int offset) {
+    return (start, count, half) -> {
+      for (int i = offset + start, end = i + count; i < end; i++) {
+        int a = values[i];
+        int b = values[i + half];
+        values[i] = a + b;
+        values[i + half] = a - b;
+      }
+    };
+  }
+
+  private static Butterflies butterflies(long[] values, int offset) {
+    return (start, count, half) -> {
+      for (int i = offset + start, end = i + count; i < end; i++) {
+        long a = values[i];
+        long b = values[i + half];
+        values[i] = a + b;
+        values[i + half] = a - b;
+      }
+    };
+  }
+
+  private static Butterflies butterflies(double[] values, int offset) {
+    return (start, count, half) -> {
+      for (int i = offset + start, end = i + count; i < end; i++) {
+        double a = values[i];
+        double b = values[i + half];
+        values[i] = a + b;
+        values[i + half] = a - b;
+      }
+    };
+  }
+
+  public static void transform(int[] values) {
+    transform(values, 0, values.length);
+  }
+
+  public static void transform(long[] values) {
+    transform(values, 0, values.length);
+  }
+
+  public static void transform(double[] values) {
+    transform(values, 0, values.length);
+  }
+
+  /** Transforms values[offset, offset + length) in place. */
+  public static void transform(int[] values, int offset, int length) {
+    checkRange(values.length, offset, length);
+    transform(butterflies(values, offset), length);
+  }
+
+  public static void transform(long[] values, int offset, int length) {
+    checkRange(values.length, offset, length);
+    transform(butterflies(values, offset), length);
+  }
+
+  public static void transform(double[] values, int offset, int length) {
+    checkRange(values.length, offset, length);
+    transform(butterflies(values, offset), length);
+  }
+
+  /** Transforms one long vector with its blocks and chunks spread across the pool. */
+  public static void transform(int[] values, ForkJoinPool pool) {
+    checkRange(values.length, 0, values.length);
+    transform(butterflies(values, 0), values.length, pool);
+  }
+
+  public static void transform(long[] values, ForkJoinPool pool) {
+    checkRange(values.length, 0, values.length);
+    transform(butterflies(values, 0), values.length, pool);
+  }
+
+  public static void transform(double[] values, ForkJoinPool pool) {
+    checkRange(values.length, 0, values.length);
+    transform(butterflies(values, 0), values.length, pool);
+  }
+
+  /** Transforms every vector in place. */
+  public static void transformAll(int[][] vectors) {
+    for (int[] vector : vectors) {
+      transform(vector);
+    }
+  }
+
+  public static void transformAll(long[][] vectors) {
+    for (long[] vector : vectors) {
+      transform(vector);
+    }
+  }
+
+  public static void transformAll(double[][] vectors) {
+    for (double[] vector : vectors) {
+      transform(vector);
+    }
+  }
+
+  /** Transforms every vector in place, vectors spread across the pool. */
+  public static void transformAll(int[][] vectors, ForkJoinPool pool) {
+    pool.invoke(new Range(0, vectors.length, grain(vectors.length == 0 ? 0 : vectors[0].length),
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            transform(vectors[i]);
+          }
+        }));
+  }
+
+  public static void transformAll(long[][] vectors, ForkJoinPool pool) {
+    pool.invoke(new Range(0, vectors.length, grain(vectors.length == 0 ? 0 : vectors[0].length),
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            transform(vectors[i]);
+          }
+        }));
+  }
+
+  public static void transformAll(double[][] vectors, ForkJoinPool pool) {
+    pool.invoke(new Range(0, vectors.length, grain(vectors.length == 0 ? 0 : vectors[0].length),
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            transform(vectors[i]);
+          }
+        }));
+  }
+
+  private static void checkRange(int arrayLength, int offset, int length) {
+    Preconditions.checkState(length > 0 && Integer.bitCount(length) == 1,
+        "Length %s is not a power of two", length);
+    Preconditions.checkState(offset >= 0 && offset <= arrayLength - length,
+        "Range [%s, %s) is outside the array of %s", offset, offset + length, arrayLength);
+  }
+
+  /** The number of items of the given size a parallel task should take. */
+  private static int grain(int itemEntries) {
+    return Math.max(1, TASK_ENTRIES / Math.max(1, itemEntries));
+  }
+
+  private static void transform(Butterflies butterflies, int length) {
+    int block = Math.min(length, BLOCK);
+    for (int start = 0; start < length; start += block) {
+      transformBlock(butterflies, start, block);
+    }
+    for (int half = block; half < length; half <<= 1) {
+      for (int start = 0; start < length; start += 2 * half) {
+        butterflies.apply(start, half, half);
+      }
+    }
+  }
+
+  /** Runs every stage below block on [start, start + block). */
+  private static void transformBlock(Butterflies butterflies, int start, int block) {
+    for (int half = 1; half < block; half <<= 1) {
+      for (int group = start; group < start + block; group += 2 * half) {
+        butterflies.apply(group, half, half);
+      }
+    }
+  }
+
+  // Each later stage pairs n / 2 entries, so it splits into n / (2 BLOCK) chunks of
+  // BLOCK butterflies that touch disjoint entries.
+  private static void transform(Butterflies butterflies, int length, ForkJoinPool pool) {
+    if (length <= BLOCK) {
+      transform(butterflies, length);
+      return;
+    }
+    pool.invoke(new Range(0, length / BLOCK, grain(BLOCK),
+        (start, end) -> {
+          for (int block = start; block < end; block++) {
+            transformBlock(butterflies, block * BLOCK, BLOCK);
+          }
+        }));
+    for (int half = BLOCK; half < length; half <<= 1) {
+      int stageHalf = half;
+      pool.invoke(new Range(0, length / (2 * BLOCK), grain(BLOCK),
+          (start, end) -> {
+            for (int chunk = start; chunk < end; chunk++) {
+              int offset = chunk * BLOCK;
+              int group = offset / stageHalf;
+              butterflies.apply(2 * stageHalf * group + offset % stageHalf, BLOCK, stageHalf);
+            }
+          }));
+    }
+  }
+
+  interface RangeKernel {
+    void compute(int start, int end);
+  }
+
+  /** Splits [start, end) in half until pieces are at most grain long. */
+  static class Range extends RecursiveAction {
+    private final int start;
+    private final int end;
+    private final int grain;
+    private final RangeKernel kernel;
+
+    Range(int start, int end, int grain, RangeKernel kernel) {
+      this.start = start;
+      this.end = end;
+      this.grain = grain;
+      this.kernel = kernel;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= grain) {
+        kernel.compute(start, end);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new Range(start, middle, grain, kernel), new Range(middle, end, grain, kernel));
+    }
+  }
+}
@@ -0,0 +1,414 @@
+package hadamard;
+
+import com.google.common.base.Preconditions;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches for Williamson sequences: four symmetric +1/-1 sequences A, B, C, D of odd
+ * length m whose periodic autocorrelations sum to zero at every nonzero shift.  Their
+ * circulant matrices plugged into the Williamson array
+ *    A   B   C   D
+ *   -B   A  -D   C
+ *   -C   D   A  -B
+ *   -D  -C   B   A
+ * give a Hadamard matrix of order 4m, reaching orders such as 92 (m = 23) and 116
+ * (m = 29) that neither Paley construction covers.
+ *
+ * Negating a sequence or reordering the four keeps the property, so each sequence
+ * starts with +1 and the four are taken in nondecreasing (|row sum|, index) order.
+ * Candidates are pruned on their own before the search:
+ *   the row sums s satisfy sA^2 + sB^2 + sC^2 + sD^2 = 4m, and
+ *   the power spectral densities satisfy PSD_A(t) + ... + PSD_D(t) = 4m for every t,
+ * so no single sequence, pair or triple may exceed 4m at any frequency.  The search
+ * backtracks over A, B and C, one fork-join task per A, and looks D up in a hash table
+ * keyed by its autocorrelation, which must be the negated sum of the other three.
+ *
+ * With a Checkpointer the search saves the row-sum decomposition it is working on and
+ * the A candidates finished within it, and find() skips those on restart.
+ */
+public class WilliamsonSearch {
+  private static final double PSD_TOLERANCE = 1e-6;
+  static final String CHECKPOINT_NAME = "williamson";
+
+  /** Four sequences of length m, each entry +1 or -1. */
+  public static class Sequences {
+    private final int[][] sequences;
+
+    Sequences(int[] a, int[] b, int[] c, int[] d) {
+      this.sequences = new int[][] {a, b, c, d};
+    }
+
+    /** Returns sequence 0 (A) through 3 (D). */
+    public int[] get(int index) {
+      return sequences[index];
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder();
+      for (int[] sequence : sequences) {
+        for (int value : sequence) {
+          result.append(value == 1 ? '+' : '-');
+        }
+        result.append('\n');
+      }
+      return result.toString();
+    }
+  }
+
+  /**
+   * A symmetric sequence with entry 0 equal to +1; bit j - 1 of bits set means entries j
+   * and m - j are -1.
+   */
+  static class Candidate {
+    final int bits;
+    final int[] sequence;
+    final int rowSum;
+    // Autocorrelation at shifts 1 .. (m - 1) / 2; the rest mirror these.
+    final int[] autocorrelation;
+    // Power spectral density at frequencies 1 .. (m - 1) / 2.
+    final double[] psd;
+
+    Candidate(int bits, int[] sequence, int rowSum, int[] autocorrelation, double[] psd) {
+      this.bits = bits;
+      this.sequence = sequence;
+      this.rowSum = rowSum;
+      this.autocorrelation = autocorrelation;
+      this.psd = psd;
+    }
+  }
+
+  private final int length;
+  private final int half;
+  private final ForkJoinPool pool;
+  private Checkpointer checkpointer;
+  // Only A candidates whose index is shardIndex mod shardCount are searched.
+  private int shardIndex = 0;
+  private int shardCount = 1;
+
+  public WilliamsonSearch(int length, ForkJoinPool pool) {
+    Preconditions.checkState(length % 2 == 1, "Williamson length %s must be odd", length);
+    Preconditions.checkState(length <= 61, "Williamson length %s too large", length);
+    this.length = length;
+    this.half = (length - 1) / 2;
+    this.pool = pool;
+  }
+
+  /** Builds, verifies and returns a Williamson Hadamard matrix of the given order. */
+  public static Matrix construct(int order, ForkJoinPool pool) {
+    Preconditions.checkState(order % 4 == 0, "Order %s is not a multiple of 4", order);
+    Sequences sequences = new WilliamsonSearch(order / 4, pool).find();
+    Preconditions.checkState(sequences != null, "No Williamson sequences of length %s", order / 4);
+    Matrix matrix = assemble(sequences);
+    HadamardVerifier.Result result = HadamardVerifier.verify(matrix);
+    Preconditions.checkState(result.isHadamard(), "Williamson matrix not Hadamard: %s", result);
+    return matrix;
+  }
+
+  public static Matrix assemble(Sequences sequences) {
+    // Block (row, column) holds sign * sequence index + 1, following the array above.
+    int[][] layout = {
+        {1, 2, 3, 4},
+        {-2, 1, -4, 3},
+        {-3, 4, 1, -2},
+        {-4, -3, 2, 1}};
+    int length = sequences.get(0).length;
+    int[][] values = new int[4 * length][4 * length];
+    for (int blockRow = 0; blockRow < 4; blockRow++) {
+      for (int blockColumn = 0; blockColumn < 4; blockColumn++) {
+        int sign = Integer.signum(layout[blockRow][blockColumn]);
+        int[] sequence = sequences.get(Math.abs(layout[blockRow][blockColumn]) - 1);
+        for (int i = 0; i < length; i++) {
+          for (int j = 0; j < length; j++) {
+            values[blockRow * length + i][blockColumn * length + j] =
+                sign * sequence[Math.floorMod(j - i, length)];
+          }
+        }
+      }
+    }
+    return new Matrix(values);
+  }
+
+  public void setCheckpointer(Checkpointer checkpointer) {
+    this.checkpointer = checkpointer;
+  }
+
+  /** Restricts the search to the A candidates with index shardIndex mod shardCount. */
+  public void setShard(int shardIndex, int shardCount) {
+    Preconditions.checkState(0 <= shardIndex && shardIndex < shardCount,
+        "Shard %s not in [0, %s)", shardIndex, shardCount);
+    this.shardIndex = shardIndex;
+    this.shardCount = shardCount;
+  }
+
+  private int[] checkpointParameters() {
+    return new int[] {length, shardIndex, shardCount};
+  }
+
+  /** Returns some Williamson sequences of this length, or null if there are none. */
+  public Sequences find() {
+    int firstDecomposition = 0;
+    BitSet finished = new BitSet();
+    if (checkpointer != null) {
+      Checkpoint checkpoint = checkpointer.load(CHECKPOINT_NAME, checkpointParameters());
+      if (checkpoint != null) {
+        if (checkpoint.isComplete()) {
+          return null;
+        }
+        int[] frontier = checkpoint.getFrontier();
+        firstDecomposition = frontier[0];
+        for (int i = 1; i < frontier.length; i++) {
+          finished.set(frontier[i]);
+        }
+      }
+    }
+    List<Candidate> candidates = generateCandidates();
+    AtomicReference<Sequences> found = new AtomicReference<>();
+    List<int[]> decompositions = rowSumDecompositions();
+    for (int decomposition = firstDecomposition; decomposition < decompositions.size();
+        decomposition++) {
+      int[] rowSums = decompositions.get(decomposition);
+      List<List<Candidate>> classes = new ArrayList<>();
+      for (int rowSum : rowSums) {
+        List<Candidate> rowSumClass = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+          if (Math.abs(candidate.rowSum) == rowSum) {
+            rowSumClass.add(candidate);
+          }
+        }
+        classes.add(rowSumClass);
+      }
+      TLongObjectHashMap<int[]> lastByAutocorrelation = indexByAutocorrelation(classes.get(3));
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      Progress progress = new Progress(decomposition, finished);
+      for (int a = shardIndex; a < classes.get(0).size(); a += shardCount) {
+        if (!finished.get(a)) {
+          tasks.add(new SearchFromA(rowSums, classes, lastByAutocorrelation, a, found, progress));
+        }
+      }
+      pool.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+      if (found.get() != null) {
+        return found.get();
+      }
+      finished = new BitSet();
+    }
+    if (checkpointer != null) {
+      checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(), new long[0],
+          new int[0], true));
+    }
+    return null;
+  }
+
+  /** The A candidates finished within one decomposition, saved when due. */
+  private class Progress {
+    private final int decomposition;
+    private final BitSet finished;
+
+    Progress(int decomposition, BitSet finished) {
+      this.decomposition = decomposition;
+      this.finished = finished;
+    }
+
+    synchronized void finish(int a) {
+      finished.set(a);
+      if (checkpointer != null && checkpointer.isDue()) {
+        int[] frontier = new int[1 + finished.cardinality()];
+        frontier[0] = decomposition;
+        int i = 1;
+        for (int done = finished.nextSetBit(0); done >= 0; done = finished.nextSetBit(done + 1)) {
+          frontier[i++] = done;
+        }
+        checkpointer.save(new Checkpoint(CHECKPOINT_NAME, checkpointParameters(), new long[0],
+            frontier, false));
+      }
+    }
+  }
+
+  List<Candidate> generateCandidates() {
+    double[][] cosines = new double[half + 1][length];
+    for (int frequency = 1; frequency <= half; frequency++) {
+      for (int j = 0; j < length; j++) {
+        cosines[frequency][j] = Math.cos(2 * Math.PI * ((long) frequency * j % length) / length);
+      }
+    }
+    List<Candidate> candidates = new ArrayList<>();
+    for (int bits = 0; bits < 1 << half; bits++) {
+      int[] sequence = new int[length];
+      sequence[0] = 1;
+      int rowSum = 1;
+      for (int j = 1; j <= half; j++) {
+        int value = ((bits >>> (j - 1)) & 1) == 1 ? -1 : 1;
+        sequence[j] = value;
+        sequence[length - j] = value;
+        rowSum += 2 * value;
+      }
+      if (rowSum * rowSum > 4 * length - 3) {
+        continue;
+      }
+      double[] psd = new double[half];
+      boolean withinBound = true;
+      for (int frequency = 1; frequency <= half && withinBound; frequency++) {
+        double sum = 0;
+        for (int j = 0; j < length; j++) {
+          sum += sequence[j] * cosines[frequency][j];
+        }
+        psd[frequency - 1] = sum * sum;
+        withinBound = sum * sum <= 4 * length + PSD_TOLERANCE;
+      }
+      if (!withinBound) {
+        continue;
+      }
+      int[] autocorrelation = new int[half];
+      for (int shift = 1; shift <= half; shift++) {
+        int sum = 0;
+        for (int j = 0; j < length; j++) {
+          sum += sequence[j] * sequence[(j + shift) % length];
+        }
+        autocorrelation[shift - 1] = sum;
+      }
+      candidates.add(new Candidate(bits, sequence, rowSum, autocorrelation, psd));
+    }
+    return candidates;
+  }
+
+  /** Returns the odd s1 <= s2 <= s3 <= s4 with squares summing to 4m. */
+  List<int[]> rowSumDecompositions() {
+    List<int[]> decompositions = new ArrayList<>();
+    int target = 4 * length;
+    for (int s1 = 1; 4 * s1 * s1 <= target; s1 += 2) {
+      for (int s2 = s1; s1 * s1 + 3 * s2 * s2 <= target; s2 += 2) {
+        for (int s3 = s2; s1 * s1 + s2 * s2 + 2 * s3 * s3 <= target; s3 += 2) {
+          int remainder = target - s1 * s1 - s2 * s2 - s3 * s3;
+          int s4 = (int) Math.round(Math.sqrt(remainder));
+          if (s4 >= s3 && s4 * s4 == remainder) {
+            decompositions.add(new int[] {s1, s2, s3, s4});
+          }
+        }
+      }
+    }
+    return decompositions;
+  }
+
+  static long hash(int[] values) {
+    long hash = 1;
+    for (int value : values) {
+      hash = hash * 1_000_003L + value;
+    }
+    return hash;
+  }
+
+  private static TLongObjectHashMap<int[]> indexByAutocorrelation(List<Candidate> candidates) {
+    TLongObjectHashMap<int[]> index = new TLongObjectHashMap<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      long key = hash(candidates.get(i).autocorrelation);
+      int[] existing = index.get(key);
+      int[] updated = existing == null ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+      updated[updated.length - 1] = i;
+      index.put(key, updated);
+    }
+    return index;
+  }
+
+  private class SearchFromA extends RecursiveAction {
+    private final int[] rowSums;
+    private final List<List<Candidate>> classes;
+    private final TLongObjectHashMap<int[]> lastByAutocorrelation;
+    private final int a;
+    private final AtomicReference<Sequences> found;
+    private final Progress progress;
+
+    SearchFromA(int[] rowSums, List<List<Candidate>> classes,
+        TLongObjectHashMap<int[]> lastByAutocorrelation, int a, AtomicReference<Sequences> found,
+        Progress progress) {
+      this.rowSums = rowSums;
+      this.classes = classes;
+      this.lastByAutocorrelation = lastByAutocorrelation;
+      this.a = a;
+      this.found = found;
+      this.progress = progress;
+    }
+
+    @Override
+    protected void compute() {
+      search();
+      if (found.get() == null) {
+        progress.finish(a);
+      }
+    }
+
+    private void search() {
+      Candidate candidateA = classes.get(0).get(a);
+      List<Candidate> classB = classes.get(1);
+      List<Candidate> classC = classes.get(2);
+      List<Candidate> classD = classes.get(3);
+      double bound = 4 * length + PSD_TOLERANCE;
+      double[] psdAB = new double[half];
+      int[] target = new int[half];
+      for (int b = rowSums[1] == rowSums[0] ? a : 0; b < classB.size(); b++) {
+        if (found.get() != null) {
+          return;
+        }
+        Candidate candidateB = classB.get(b);
+        if (!addWithin(candidateA.psd, candidateB.psd, psdAB, bound)) {
+          continue;
+        }
+        for (int c = rowSums[2] == rowSums[1] ? b : 0; c < classC.size(); c++) {
+          Candidate candidateC = classC.get(c);
+          if (!sumWithin(psdAB, candidateC.psd, bound)) {
+            continue;
+          }
+          for (int shift = 0; shift < half; shift++) {
+            target[shift] = -(candidateA.autocorrelation[shift]
+                + candidateB.autocorrelation[shift] + candidateC.autocorrelation[shift]);
+          }
+          int[] matches = lastByAutocorrelation.get(hash(target));
+          if (matches == null) {
+            continue;
+          }
+          for (int d : matches) {
+            if ((rowSums[3] != rowSums[2] || d >= c)
+                && Arrays.equals(target, classD.get(d).autocorrelation)) {
+              found.compareAndSet(null, new Sequences(candidateA.sequence,
+                  candidateB.sequence, candidateC.sequence, classD.get(d).sequence));
+              return;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Writes a + b into sum, returning false as soon as an entry exceeds bound. */
+  private static boolean addWithin(double[] a, double[] b, double[] sum, double bound) {
+    for (int i = 0; i < a.length; i++) {
+      sum[i] = a[i] + b[i];
+      if (sum[i] > bound) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sumWithin(double[] a, double[] b, double bound) {
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] + b[i] > bound) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
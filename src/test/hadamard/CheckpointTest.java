@@ -0,0 +1,123 @@
+package hadamard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+public class CheckpointTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("search.ckpt");
+    assertNull(Checkpoint.read(file));
+    new Checkpoint("clique", new int[] {12}, new long[] {7, 1L << 40}, new int[] {3, 9}, false)
+        .withOutputBytes(5L << 32).write(file);
+    Checkpoint checkpoint = Checkpoint.read(file);
+    assertTrue(checkpoint.matches("clique", new int[] {12}));
+    assertFalse(checkpoint.matches("clique", new int[] {16}));
+    assertArrayEquals(new long[] {7, 1L << 40}, checkpoint.getCounters());
+    assertArrayEquals(new int[] {3, 9}, checkpoint.getFrontier());
+    assertEquals(5L << 32, checkpoint.getOutputBytes());
+    assertFalse(checkpoint.isComplete());
+    assertEquals(List.of(file.getFileName()),
+        Files.list(folder.getRoot().toPath()).map(Path::getFileName).collect(Collectors.toList()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDetectsCorruption() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("search.ckpt");
+    new Checkpoint("orderly", new int[] {16, 5}, new long[] {1}, new int[] {42}, false).write(file);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length - 6] ^= 1;
+    Files.write(file, bytes);
+    Checkpoint.read(file);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDetectsTruncation() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("search.ckpt");
+    Files.write(file, new byte[] {'H', 'C', 'K'});
+    Checkpoint.read(file);
+  }
+
+  @Test
+  public void testCliqueSearchResumes() {
+    CompatibilityGraph graph = CompatibilityGraph.normalizedRows(8);
+    Set<List<Integer>> all = new HashSet<>();
+    new CliqueSearch(graph).enumerate(clique -> all.add(asList(clique)));
+
+    Path file = folder.getRoot().toPath().resolve("clique.ckpt");
+    Set<List<Integer>> resumed = new HashSet<>();
+    CliqueSearch interrupted = new CliqueSearch(graph);
+    interrupted.setCheckpointer(new Checkpointer(file, Duration.ZERO));
+    interrupted.enumerate(clique -> resumed.add(asList(clique)) && resumed.size() < 12);
+    CliqueSearch restarted = new CliqueSearch(graph);
+    restarted.setCheckpointer(new Checkpointer(file, Duration.ZERO));
+    assertEquals(all.size(), restarted.enumerate(clique -> {
+      resumed.add(asList(clique));
+      return true;
+    }));
+    assertEquals(all, resumed);
+    assertTrue(Checkpoint.read(file).isComplete());
+    assertEquals(all.size(), restarted.enumerate(clique -> false));
+  }
+
+  @Test
+  public void testOrderlySearchResumes() {
+    Set<List<Integer>> all = new HashSet<>();
+    long count = new OrderlySearch(16, 7).enumerate(codes -> all.add(asList(codes)));
+
+    Path file = folder.getRoot().toPath().resolve("orderly.ckpt");
+    Set<List<Integer>> resumed = new HashSet<>();
+    OrderlySearch interrupted = new OrderlySearch(16, 7);
+    interrupted.setCheckpointer(new Checkpointer(file, Duration.ZERO));
+    interrupted.enumerate(codes -> resumed.add(asList(codes)) && resumed.size() < count / 2);
+    assertTrue(Files.exists(file));
+    assertFalse(Checkpoint.read(file).isComplete());
+    OrderlySearch restarted = new OrderlySearch(16, 7);
+    restarted.setCheckpointer(new Checkpointer(file, Duration.ZERO));
+    long[] delivered = {0};
+    assertEquals(count, restarted.enumerate(codes -> {
+      delivered[0]++;
+      resumed.add(asList(codes));
+      return true;
+    }));
+    assertTrue(delivered[0] < count);
+    assertEquals(all, resumed);
+  }
+
+  @Test
+  public void testWilliamsonSearchSkipsFinishedWork() {
+    Path file = folder.getRoot().toPath().resolve("williamson.ckpt");
+    WilliamsonSearch search = new WilliamsonSearch(7, ForkJoinPool.commonPool());
+    search.setCheckpointer(new Checkpointer(file));
+    new Checkpoint(WilliamsonSearch.CHECKPOINT_NAME, new int[] {7, 0, 1}, new long[0], new int[0], true)
+        .write(file);
+    assertNull(search.find());
+    new Checkpoint(WilliamsonSearch.CHECKPOINT_NAME, new int[] {7, 0, 1}, new long[0],
+        new int[] {0, 0}, false).write(file);
+    assertTrue(WilliamsonSearch.assemble(search.find()).isHadamard());
+  }
+
+  private static List<Integer> asList(int[] values) {
+    return IntStream.of(values).boxed().collect(Collectors.toList());
+  }
+}
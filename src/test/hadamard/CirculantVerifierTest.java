@@ -0,0 +1,95 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class CirculantVerifierTest {
+  private static HadamardVerifier.Result verifyAllPairs(MatrixView matrix) {
+    return HadamardVerifier.verifyLeadingRows(matrix, new long[matrix.size()][], matrix.size());
+  }
+
+  private static Matrix borderedCirculant(int corner, int rowBorder, int columnBorder, int[] sequence) {
+    int order = sequence.length + 1;
+    int[][] values = new int[order][order];
+    values[0][0] = corner;
+    for (int i = 1; i < order; i++) {
+      values[0][i] = rowBorder;
+      values[i][0] = columnBorder;
+      for (int j = 1; j < order; j++) {
+        values[i][j] = sequence[Math.floorMod(j - i, sequence.length)];
+      }
+    }
+    return new Matrix(values);
+  }
+
+  @Test
+  public void testDetectsPaleyConstructionOneForPrimes() {
+    Paley paley = new Paley();
+    assertEquals(CirculantVerifier.Structure.BORDERED_CIRCULANT,
+        CirculantVerifier.detect(paley.paleyConstructionOne(43, 1)));
+    assertEquals(CirculantVerifier.Structure.NONE,
+        CirculantVerifier.detect(paley.paleyConstructionOne(3, 3)));
+    assertEquals(CirculantVerifier.Structure.NONE,
+        CirculantVerifier.detect(paley.paleyConstructionTwo(13, 1)));
+    assertTrue(CirculantVerifier.verify(paley.lazyPaleyConstructionOne(199, 1)).isHadamard());
+  }
+
+  @Test
+  public void testCirculantOrderFour() {
+    Matrix circulant = new Matrix(new int[][] {
+        {-1, 1, 1, 1}, {1, -1, 1, 1}, {1, 1, -1, 1}, {1, 1, 1, -1}});
+    assertEquals(CirculantVerifier.Structure.CIRCULANT, CirculantVerifier.detect(circulant));
+    assertEquals(HadamardVerifier.Result.HADAMARD, CirculantVerifier.verify(circulant));
+    assertNull(CirculantVerifier.verify(Matrix.identity(4)));
+  }
+
+  @Test
+  public void testFailuresMatchAllPairs() {
+    Random random = new Random(3);
+    for (int trial = 0; trial < 300; trial++) {
+      int[] sequence = new int[2 + random.nextInt(80)];
+      for (int i = 0; i < sequence.length; i++) {
+        sequence[i] = random.nextBoolean() ? 1 : -1;
+      }
+      Matrix matrix = borderedCirculant(random.nextBoolean() ? 1 : -1,
+          random.nextBoolean() ? 1 : -1, random.nextBoolean() ? 1 : -1, sequence);
+      HadamardVerifier.Result expected = verifyAllPairs(matrix);
+      assertEquals(expected, CirculantVerifier.verify(matrix));
+      assertEquals(expected, HadamardVerifier.verify(matrix));
+    }
+    Matrix paley = new Paley().paleyConstructionOne(67, 1);
+    paley.set(1, 0, -1);
+    for (int row = 1; row < paley.size(); row++) {
+      paley.set(row, 0, -1);
+    }
+    assertEquals(verifyAllPairs(paley), CirculantVerifier.verify(paley));
+  }
+
+  @Test
+  public void testFftAutocorrelationMatchesPopcount() {
+    Random random = new Random(9);
+    int length = 20000;
+    long[] sequence = new long[PackedMatrix.wordsPerRow(length)];
+    for (int i = 0; i < length; i++) {
+      if (random.nextBoolean()) {
+        sequence[i >>> 6] |= 1L << i;
+      }
+    }
+    long[] autocorrelation = CirculantVerifier.periodicAutocorrelations(sequence, length);
+    for (int shift = 0; shift < length; shift += 97) {
+      assertEquals(CirculantVerifier.periodicAutocorrelation(sequence, length, shift),
+          autocorrelation[shift]);
+    }
+  }
+
+  @Test
+  public void testLargePrimeConstructionOne() {
+    PaleyMatrix matrix = PaleyMatrix.constructionOne(new GaloisField(16411, 1));
+    assertEquals(HadamardVerifier.Result.HADAMARD, HadamardVerifier.verify(matrix));
+  }
+}
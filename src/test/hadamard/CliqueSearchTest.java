@@ -0,0 +1,39 @@
+package hadamard;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class CliqueSearchTest {
+  @Test
+  public void testGraphMatchesRows() {
+    CompatibilityGraph graph = CompatibilityGraph.normalizedRows(8);
+    assertEquals(35, graph.vertexCount());
+    for (int u = 0; u < graph.vertexCount(); u++) {
+      assertEquals(graph.code(u), graph.row(u).getSummaryInt());
+      for (int v = 0; v < graph.vertexCount(); v++) {
+        assertEquals(u != v && graph.row(u).dot(graph.row(v)) == 0, graph.isAdjacent(u, v));
+      }
+    }
+  }
+
+  @Test
+  public void testCountsNormalizedMatrices() {
+    // 2n * n! / |Aut(H)| normalized matrices with unordered rows.
+    assertEquals(1, new CliqueSearch(CompatibilityGraph.normalizedRows(4)).count());
+    assertEquals(30, new CliqueSearch(CompatibilityGraph.normalizedRows(8)).count());
+    assertEquals(60480, new CliqueSearch(CompatibilityGraph.normalizedRows(12)).count());
+  }
+
+  @Test
+  public void testEveryCliqueIsHadamard() {
+    CompatibilityGraph graph = CompatibilityGraph.normalizedRows(16);
+    long visited = new CliqueSearch(graph).enumerate(clique -> {
+      assertTrue(graph.toMatrix(clique).isHadamard());
+      return false;
+    });
+    assertEquals(1, visited);
+    assertTrue(new CliqueSearch(CompatibilityGraph.normalizedRows(12)).findFirst().isHadamard());
+  }
+}
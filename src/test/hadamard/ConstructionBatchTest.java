@@ -0,0 +1,48 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class ConstructionBatchTest {
+  @Test
+  public void testTableOneIsValid() throws Exception {
+    List<PaleyConstructionParameters.ConstructionParameters> parameters =
+        new ArrayList<>(PaleyConstructionParameters.generateParameters(200).values());
+    assertEquals(40, parameters.size());
+    try (ConstructionBatch batch = new ConstructionBatch(3)) {
+      List<ConstructionBatch.Result> results = batch.run(parameters);
+      assertEquals(parameters.size(), results.size());
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(parameters.get(i).getOrder(), results.get(i).getOrder());
+        assertTrue(results.get(i).toString(), results.get(i).isValid());
+      }
+    }
+  }
+
+  @Test
+  public void testFailureDoesNotAbortBatch() throws Exception {
+    List<PaleyConstructionParameters.ConstructionParameters> parameters = new ArrayList<>();
+    for (int p : new int[] {7, 9, 11}) {
+      parameters.add(new PaleyConstructionParameters.ConstructionParameters(
+          PaleyConstructionParameters.ConstructionParameters.ConstructionMethod.ONE, p, 1));
+    }
+    try (ConstructionBatch batch = new ConstructionBatch(2)) {
+      List<ConstructionBatch.Result> results = batch.run(parameters);
+      assertEquals(3, results.size());
+      assertTrue(results.get(0).isValid());
+      assertFalse(results.get(1).isValid());
+      assertEquals(10, results.get(1).getOrder());
+      assertTrue(results.get(1).getError() instanceof IllegalStateException);
+      assertNull(results.get(1).getVerification());
+      assertTrue(results.get(1).toString().contains("failed"));
+      assertTrue(results.get(2).isValid());
+    }
+  }
+}
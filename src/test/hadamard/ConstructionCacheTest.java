@@ -0,0 +1,88 @@
+package hadamard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class ConstructionCacheTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path file(ConstructionCache.Key key) {
+    return folder.getRoot().toPath().resolve(key.fileName());
+  }
+
+  @Test
+  public void testServesFromMemoryThenDisk() {
+    Path directory = folder.getRoot().toPath();
+    Matrix expected = new Paley().paleyConstructionTwo(13, 1);
+    ConstructionCache cache = new ConstructionCache(directory, 1 << 20, 1 << 20);
+    ConstructionCache.Entry built = cache.paley(Construction.PALEY_TWO, 13, 1);
+    assertTrue(built.isVerified());
+    assertEquals(expected, built.getMatrix().toMatrix());
+    assertEquals(built, cache.paley(Construction.PALEY_TWO, 13, 1));
+    assertEquals(1, cache.getBuilds());
+    assertEquals(1, cache.getMemoryHits());
+
+    ConstructionCache restarted = new ConstructionCache(directory, 1 << 20, 1 << 20);
+    assertEquals(expected, restarted.paley(Construction.PALEY_TWO, 13, 1).getMatrix().toMatrix());
+    assertEquals(1, restarted.getDiskHits());
+    assertEquals(0, restarted.getBuilds());
+  }
+
+  @Test
+  public void testRebuildsCorruptFiles() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    new ConstructionCache(directory, 1 << 20, 0).paley(Construction.PALEY_ONE, 3, 3);
+    Path file = file(ConstructionCache.Key.paley(Construction.PALEY_ONE, 3, 3));
+    try (RandomAccessFile access = new RandomAccessFile(file.toFile(), "rw")) {
+      access.seek(MatrixFile.HEADER_BYTES + 5);
+      int value = access.read();
+      access.seek(MatrixFile.HEADER_BYTES + 5);
+      access.write(value ^ 4);
+    }
+    ConstructionCache cache = new ConstructionCache(directory, 1 << 20, 0);
+    ConstructionCache.Entry entry = cache.paley(Construction.PALEY_ONE, 3, 3);
+    assertEquals(1, cache.getBuilds());
+    assertEquals(1, cache.getDiscards());
+    assertTrue(entry.isVerified());
+    assertEquals(new Paley().paleyConstructionOne(3, 3), entry.getMatrix().toMatrix());
+    MatrixFile.map(file).checkBody();
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedFiles() {
+    Path directory = folder.getRoot().toPath();
+    // Room for two of the order-12 to order-24 files, which take 64 + 8n bytes.
+    ConstructionCache cache = new ConstructionCache(directory, 2 * (64 + 8 * 24), 0);
+    OrderPlanner planner = new OrderPlanner();
+    cache.order(planner, 12);
+    cache.order(planner, 20);
+    cache.order(planner, 12);
+    cache.order(planner, 24);
+    assertTrue(Files.exists(file(ConstructionCache.Key.order(12))));
+    assertFalse(Files.exists(file(ConstructionCache.Key.order(20))));
+    assertTrue(Files.exists(file(ConstructionCache.Key.order(24))));
+    assertEquals(1, cache.getDiskHits());
+    assertEquals(3, cache.getBuilds());
+  }
+
+  @Test
+  public void testRecordsFailedVerification() {
+    ConstructionCache cache = new ConstructionCache(folder.getRoot().toPath(), 1 << 20, 1 << 20);
+    ConstructionCache.Key key = ConstructionCache.Key.order(4);
+    Matrix notHadamard = new Matrix(new int[][] {
+        {1, 1, 1, 1}, {1, 1, 1, 1}, {1, -1, 1, -1}, {1, 1, -1, -1}});
+    assertFalse(cache.get(key, () -> notHadamard).isVerified());
+    assertFalse(MatrixFile.readHeader(file(key)).isVerified());
+  }
+}
@@ -0,0 +1,77 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class EquivalenceClassifierTest {
+  /** Permutes and negates the rows and columns at random. */
+  private static Matrix scramble(MatrixView matrix, long seed) {
+    Random random = new Random(seed);
+    int order = matrix.size();
+    List<Integer> rows = new ArrayList<>();
+    List<Integer> columns = new ArrayList<>();
+    for (int i = 0; i < order; i++) {
+      rows.add(i);
+      columns.add(i);
+    }
+    Collections.shuffle(rows, random);
+    Collections.shuffle(columns, random);
+    int[] columnSigns = new int[order];
+    for (int column = 0; column < order; column++) {
+      columnSigns[column] = random.nextBoolean() ? 1 : -1;
+    }
+    int[][] values = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      int rowSign = random.nextBoolean() ? 1 : -1;
+      for (int column = 0; column < order; column++) {
+        values[row][column] = rowSign * columnSigns[column]
+            * matrix.at(rows.get(row), columns.get(column));
+      }
+    }
+    return new Matrix(values);
+  }
+
+  @Test
+  public void testOrderSixteenHasFiveClasses() {
+    EquivalenceClassifier classifier = new EquivalenceClassifier();
+    new OrderlySearch(16, 7).enumerate(codes -> {
+      classifier.classify(OrderlySearch.toMatrix(16, codes));
+      return true;
+    });
+    assertEquals(5, classifier.classCount());
+  }
+
+  @Test
+  public void testScrambledMatricesAreEquivalent() {
+    Paley paley = new Paley();
+    for (Matrix matrix : new Matrix[] {paley.paleyConstructionOne(19, 1),
+        paley.paleyConstructionTwo(13, 1), paley.paleyConstructionOne(31, 1)}) {
+      for (long seed = 0; seed < 3; seed++) {
+        assertTrue(EquivalenceClassifier.areEquivalent(matrix, scramble(matrix, seed)));
+      }
+    }
+  }
+
+  @Test
+  public void testClassifyGroupsScrambledCopies() {
+    Paley paley = new Paley();
+    Matrix paleyOne = paley.paleyConstructionOne(23, 1);
+    Matrix kronecker = paley.paleyConstructionOne(11, 1).kronecker(
+        new Matrix(new int[][] {{1, 1}, {1, -1}}));
+    EquivalenceClassifier classifier = new EquivalenceClassifier();
+    assertEquals(0, classifier.classify(paleyOne));
+    assertEquals(1, classifier.classify(kronecker));
+    assertEquals(0, classifier.classify(scramble(paleyOne, 1)));
+    assertEquals(1, classifier.classify(PackedMatrix.fromMatrix(scramble(kronecker, 2))));
+    assertEquals(2, classifier.classCount());
+    assertFalse(EquivalenceClassifier.areEquivalent(paleyOne, kronecker));
+  }
+}
@@ -0,0 +1,150 @@
+package hadamard;
+
+import cc.redberry.rings.poly.FiniteField;
+import cc.redberry.rings.poly.univar.IrreduciblePolynomials;
+import cc.redberry.rings.poly.univar.UnivariatePolynomialZp64;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static cc.redberry.rings.Rings.GF;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class GaloisFieldTest {
+  private static final int[][] FIELDS = {{3, 2}, {5, 2}, {3, 3}, {7, 2}, {2, 4}, {2, 5}, {3, 5}};
+
+  @Test
+  public void testEncodingMatchesFieldValueOrder() {
+    for (int[] field : FIELDS) {
+      GaloisField gf = new GaloisField(field[0], field[1]);
+      List<Polynomial> fieldValues = gf.getFieldValues();
+      assertEquals(gf.getOrder(), fieldValues.size());
+      for (int i = 0; i < fieldValues.size(); i++) {
+        assertEquals(i, gf.encode(fieldValues.get(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testSubtractMatchesPolynomials() {
+    for (int[] field : FIELDS) {
+      GaloisField gf = new GaloisField(field[0], field[1]);
+      List<Polynomial> fieldValues = gf.getFieldValues();
+      for (int a = 0; a < gf.getOrder(); a++) {
+        for (int b = 0; b < gf.getOrder(); b++) {
+          Polynomial difference =
+              fieldValues.get(a).minus(fieldValues.get(b)).coefficientModulo(field[0]);
+          assertEquals(gf.encode(difference), gf.subtract(a, b));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSubtractionTableIsAtMostOrder() {
+    assertEquals(49, new GaloisField(7, 3).subtractionTableSize());
+    assertEquals(81, new GaloisField(3, 4).subtractionTableSize());
+    assertEquals(81, new GaloisField(3, 5).subtractionTableSize());
+    assertEquals(0, new GaloisField(101, 1).subtractionTableSize());
+  }
+
+  @Test
+  public void testQuadraticCharacterMatchesSquares() {
+    for (int[] field : FIELDS) {
+      GaloisField gf = new GaloisField(field[0], field[1]);
+      Set<Polynomial> residues = gf.getQuadraticResidues();
+      Set<Integer> squares = new HashSet<>();
+      for (int element = 1; element < gf.getOrder(); element++) {
+        squares.add(gf.multiply(element, element));
+      }
+      for (int element = 1; element < gf.getOrder(); element++) {
+        boolean isSquare = squares.contains(element);
+        assertEquals(isSquare ? 1 : -1, gf.quadraticCharacter(element));
+        assertEquals(isSquare, residues.contains(gf.getFieldValues().get(element)));
+      }
+      assertEquals(0, gf.quadraticCharacter(0));
+      assertEquals(squares.size(), residues.size());
+    }
+  }
+
+  @Test
+  public void testPrimeFieldQuadraticCharacter() {
+    // Squares of values above 46340 overflow an int.
+    for (int p : new int[] {3, 7, 10007, 46351}) {
+      GaloisField gf = new GaloisField(p, 1);
+      byte[] expected = new byte[p];
+      Arrays.fill(expected, (byte) -1);
+      expected[0] = 0;
+      for (long i = 1; i < p; i++) {
+        expected[(int) (i * i % p)] = 1;
+      }
+      for (int element = 0; element < p; element++) {
+        assertEquals(expected[element], gf.quadraticCharacter(element));
+        assertEquals(Math.floorMod(element - 5, p), gf.subtract(element, 5 % p));
+      }
+    }
+  }
+
+  private static UnivariatePolynomialZp64 toRings(int p, int[] modulus) {
+    long[] coefficients = new long[modulus.length + 1];
+    for (int i = 0; i < modulus.length; i++) {
+      coefficients[i] = modulus[i];
+    }
+    coefficients[modulus.length] = 1;
+    return UnivariatePolynomialZp64.create(p, coefficients);
+  }
+
+  private static UnivariatePolynomialZp64 toRings(int p, int exponent, int element) {
+    long[] coefficients = new long[exponent];
+    for (int i = 0; i < exponent; i++, element /= p) {
+      coefficients[i] = element % p;
+    }
+    return UnivariatePolynomialZp64.create(p, coefficients);
+  }
+
+  @Test
+  public void testPrimitivePolynomialsAgreeWithRings() {
+    int[][] fields = {{2, 1}, {2, 5}, {3, 1}, {3, 2}, {3, 5}, {3, 7}, {5, 3}, {7, 4}, {11, 3},
+        {13, 2}, {97, 2}, {199, 2}};
+    for (int[] field : fields) {
+      int p = field[0];
+      int exponent = field[1];
+      int[] modulus = PrimitivePolynomials.find(p, exponent);
+      UnivariatePolynomialZp64 minimal = toRings(p, modulus);
+      assertTrue(minimal.toString(), IrreduciblePolynomials.irreducibleQ(minimal));
+
+      // x generates all q - 1 units.
+      FiniteField<UnivariatePolynomialZp64> ringsField = GF(minimal);
+      UnivariatePolynomialZp64 x = ringsField.valueOf(UnivariatePolynomialZp64.create(p, new long[] {0, 1}));
+      UnivariatePolynomialZp64 power = x;
+      int order = 1;
+      while (!ringsField.isOne(power)) {
+        power = ringsField.multiply(power, x);
+        order++;
+      }
+      assertEquals(minimal.toString(), ringsField.cardinality().intValue() - 1, order);
+    }
+  }
+
+  @Test
+  public void testMultiplyAgreesWithRings() {
+    Random random = new Random(5);
+    for (int[] field : FIELDS) {
+      GaloisField gf = new GaloisField(field[0], field[1]);
+      FiniteField<UnivariatePolynomialZp64> ringsField =
+          GF(toRings(field[0], PrimitivePolynomials.find(field[0], field[1])));
+      for (int trial = 0; trial < 200; trial++) {
+        int a = random.nextInt(gf.getOrder());
+        int b = random.nextInt(gf.getOrder());
+        assertEquals(
+            ringsField.multiply(toRings(field[0], field[1], a), toRings(field[0], field[1], b)),
+            toRings(field[0], field[1], gf.multiply(a, b)));
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+public class HadamardCodeTest {
+  private static long[][] corrupt(HadamardCode code, int[] messages) {
+    int order = code.length();
+    long[][] received = new long[messages.length][];
+    for (int word = 0; word < messages.length; word++) {
+      received[word] = code.encode(messages[word]);
+      // Distinct columns, so exactly (order - 1) / 4 bits flip.
+      for (int flip = 0; flip < (order - 1) / 4; flip++) {
+        int column = (word + 7 * flip) % order;
+        received[word][column >>> 6] ^= 1L << column;
+      }
+    }
+    return received;
+  }
+
+  @Test
+  public void testCodewordsAreHalfApart() {
+    HadamardCode code = new HadamardCode(new Paley().paleyConstructionOne(11, 1));
+    for (int a = 0; a < code.messageCount(); a++) {
+      for (int b = a + 1; b < code.messageCount(); b++) {
+        int distance = PackedMatrix.numDifferences(code.encode(a), code.encode(b));
+        assertEquals(b == a + 12 ? 12 : 6, distance);
+      }
+    }
+  }
+
+  @Test
+  public void testDecodesWithinHalfTheDistance() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Paley paley = new Paley();
+      for (MatrixView matrix : new MatrixView[] {SylvesterMatrix.ofOrder(128),
+          paley.paleyConstructionOne(67, 1), paley.paleyConstructionTwo(37, 1)}) {
+        HadamardCode code = new HadamardCode(matrix);
+        assertEquals(matrix instanceof SylvesterMatrix, code.isFast());
+        int[] messages = new int[code.messageCount()];
+        for (int message = 0; message < messages.length; message++) {
+          messages[message] = message;
+          assertEquals(message, code.decode(code.encode(message)));
+        }
+        long[][] received = corrupt(code, messages);
+        assertArrayEquals(messages, code.decodeAll(received));
+        assertArrayEquals(messages, code.decodeAll(received, pool));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testFastAndPackedDecodingAgree() {
+    HadamardCode fast = new HadamardCode(SylvesterMatrix.ofOrder(64));
+    HadamardCode packed = new HadamardCode(SylvesterMatrix.ofOrder(64).toMatrix());
+    assertTrue(fast.isFast());
+    assertFalse(packed.isFast());
+    Random random = new Random(3);
+    for (int word = 0; word < 500; word++) {
+      long[] received = {random.nextLong()};
+      assertEquals(packed.decode(received), fast.decode(received));
+    }
+  }
+
+  @Test
+  public void testIgnoresPaddingBits() {
+    for (MatrixView matrix : new MatrixView[] {SylvesterMatrix.ofOrder(32),
+        new Paley().paleyConstructionOne(67, 1)}) {
+      HadamardCode code = new HadamardCode(matrix);
+      int[] messages = new int[code.messageCount()];
+      long[][] received = new long[messages.length][];
+      for (int message = 0; message < messages.length; message++) {
+        messages[message] = message;
+        received[message] = code.encode(message);
+        received[message][received[message].length - 1] |=
+            ~PackedMatrix.lastWordMask(code.length());
+        assertEquals(message, code.decode(received[message]));
+      }
+      assertArrayEquals(messages, code.decodeAll(received));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRejectsNonHadamard() {
+    new HadamardCode(Matrix.identity(4));
+  }
+}
@@ -0,0 +1,119 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+public class HadamardTransformTest {
+  private final Random random = new Random(9);
+
+  private static int[] naive(MatrixView matrix, int[] vector) {
+    int[] result = new int[vector.length];
+    for (int row = 0; row < vector.length; row++) {
+      for (int column = 0; column < vector.length; column++) {
+        result[row] += matrix.at(row, column) * vector[column];
+      }
+    }
+    return result;
+  }
+
+  private int[][] randomVectors(int count, int length) {
+    int[][] vectors = new int[count][length];
+    for (int vector = 0; vector < count; vector++) {
+      for (int i = 0; i < length; i++) {
+        vectors[vector][i] = random.nextInt(201) - 100;
+      }
+    }
+    return vectors;
+  }
+
+  @Test
+  public void testDenseMatchesProduct() {
+    Paley paley = new Paley();
+    for (MatrixView matrix : new MatrixView[] {paley.paleyConstructionOne(131, 1),
+        KroneckerMatrix.of(SylvesterMatrix.ofOrder(2), paley.lazyPaleyConstructionOne(43, 1))}) {
+      HadamardTransform transform = HadamardTransform.of(matrix);
+      assertFalse(transform.isFast());
+      int[][] vectors = randomVectors(5, matrix.size());
+      int[][] expected = new int[vectors.length][];
+      for (int vector = 0; vector < vectors.length; vector++) {
+        expected[vector] = naive(matrix, vectors[vector]);
+      }
+      int[][] serial = new int[vectors.length][];
+      for (int vector = 0; vector < vectors.length; vector++) {
+        serial[vector] = vectors[vector].clone();
+      }
+      transform.applyAll(serial);
+      assertArrayEquals(expected, serial);
+      ForkJoinPool pool = new ForkJoinPool(3);
+      try {
+        transform.applyAll(vectors, pool);
+      } finally {
+        pool.shutdown();
+      }
+      assertArrayEquals(expected, vectors);
+    }
+  }
+
+  @Test
+  public void testDoublesMatchInts() {
+    MatrixView matrix = new Paley().paleyConstructionTwo(37, 1);
+    HadamardTransform transform = HadamardTransform.of(matrix);
+    int[] ints = randomVectors(1, matrix.size())[0];
+    double[] doubles = new double[ints.length];
+    for (int i = 0; i < ints.length; i++) {
+      doubles[i] = ints[i];
+    }
+    transform.apply(ints);
+    transform.apply(doubles);
+    for (int i = 0; i < ints.length; i++) {
+      assertEquals((double) ints[i], doubles[i]);
+    }
+  }
+
+  @Test
+  public void testLongsMatchInts() {
+    Paley paley = new Paley();
+    for (MatrixView matrix : new MatrixView[] {paley.paleyConstructionTwo(37, 1),
+        KroneckerMatrix.of(SylvesterMatrix.ofOrder(2), paley.lazyPaleyConstructionOne(43, 1)),
+        SylvesterMatrix.ofOrder(64)}) {
+      HadamardTransform transform = HadamardTransform.of(matrix);
+      int[][] ints = randomVectors(4, matrix.size());
+      long[][] longs = new long[ints.length][matrix.size()];
+      for (int vector = 0; vector < ints.length; vector++) {
+        for (int i = 0; i < matrix.size(); i++) {
+          longs[vector][i] = ints[vector][i];
+        }
+      }
+      long[] single = longs[0].clone();
+      transform.applyAll(ints);
+      transform.apply(single);
+      transform.applyAll(longs, ForkJoinPool.commonPool());
+      for (int vector = 0; vector < ints.length; vector++) {
+        for (int i = 0; i < matrix.size(); i++) {
+          assertEquals((long) ints[vector][i], longs[vector][i]);
+        }
+      }
+      assertArrayEquals(longs[0], single);
+    }
+  }
+
+  @Test
+  public void testSylvesterIsFast() {
+    HadamardTransform transform = HadamardTransform.of(SylvesterMatrix.ofOrder(128));
+    assertTrue(transform.isFast());
+    int[][] vectors = randomVectors(3, 128);
+    int[][] expected = new int[3][];
+    for (int vector = 0; vector < 3; vector++) {
+      expected[vector] = naive(SylvesterMatrix.ofOrder(128), vectors[vector]);
+    }
+    transform.applyAll(vectors, ForkJoinPool.commonPool());
+    assertArrayEquals(expected, vectors);
+  }
+}
@@ -0,0 +1,61 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class HadamardVerifierTest {
+  @Test
+  public void testPaleyMatricesAreHadamard() {
+    Paley paley = new Paley();
+    assertTrue(HadamardVerifier.verify(paley.paleyConstructionOne(19, 1)).isHadamard());
+    assertTrue(HadamardVerifier.verify(paley.paleyConstructionTwo(3, 2)).isHadamard());
+  }
+
+  @Test
+  public void testReportsFirstFailingPair() {
+    Matrix matrix = new Paley().paleyConstructionOne(11, 1);
+    matrix.set(5, 3, -matrix.at(5, 3));
+    HadamardVerifier.Result result = HadamardVerifier.verify(matrix);
+    assertFalse(result.isHadamard());
+    assertEquals(0, result.getFirstRow());
+    assertEquals(5, result.getSecondRow());
+    assertEquals(2 * matrix.at(5, 3), result.getDotProduct());
+    assertEquals(result, HadamardVerifier.verify(PackedMatrix.fromMatrix(matrix)));
+  }
+
+  @Test
+  public void testReportsInvalidEntry() {
+    HadamardVerifier.Result result = HadamardVerifier.verify(Matrix.identity(4));
+    assertTrue(result.hasInvalidEntry());
+    assertEquals(0, result.getFirstRow());
+  }
+
+  @Test
+  public void testParallelMatchesSequential() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelHadamardVerifier parallel = new ParallelHadamardVerifier(pool, 5);
+      Matrix matrix = new Paley().paleyConstructionTwo(5, 2);
+      assertEquals(HadamardVerifier.Result.HADAMARD, parallel.verify(matrix));
+      Random random = new Random(7);
+      for (int trial = 0; trial < 200; trial++) {
+        Matrix corrupted = new Paley().paleyConstructionTwo(5, 2);
+        int flips = 1 + random.nextInt(3);
+        for (int flip = 0; flip < flips; flip++) {
+          int row = random.nextInt(corrupted.size());
+          int column = random.nextInt(corrupted.size());
+          corrupted.set(row, column, random.nextInt(10) == 0 ? 0 : -corrupted.at(row, column));
+        }
+        assertEquals(HadamardVerifier.verify(corrupted), parallel.verify(corrupted));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
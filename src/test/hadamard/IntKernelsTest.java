@@ -0,0 +1,82 @@
+package hadamard;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/** Checks that the vector kernels match the scalar ones bit for bit. */
+public class IntKernelsTest {
+  private final Random random = new Random(11);
+  private IntKernels scalar;
+  private IntKernels vector;
+
+  @Before
+  public void setUp() {
+    scalar = IntKernels.scalar();
+    vector = IntKernels.vector();
+    assumeTrue("jdk.incubator.vector not available", vector != null);
+  }
+
+  private int[] randomArray(int length, boolean signsOnly) {
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = signsOnly ? (random.nextBoolean() ? 1 : -1) : random.nextInt();
+    }
+    return values;
+  }
+
+  @Test
+  public void testReductions() {
+    for (int length = 0; length < 70; length++) {
+      for (boolean signsOnly : new boolean[] {true, false}) {
+        int[] a = randomArray(length, signsOnly);
+        int[] b = randomArray(length, signsOnly);
+        if (length > 0) {
+          b[random.nextInt(length)] = a[0];
+        }
+        assertEquals(scalar.dot(a, b), vector.dot(a, b));
+        assertEquals(scalar.countDifferences(a, b), vector.countDifferences(a, b));
+      }
+    }
+  }
+
+  @Test
+  public void testElementwise() {
+    for (int length = 0; length < 70; length++) {
+      int[] a = randomArray(length, false);
+      int[] b = randomArray(length, false);
+      int[] expected = new int[length];
+      int[] actual = new int[length];
+      scalar.add(a, b, expected);
+      vector.add(a, b, actual);
+      assertTrue(Arrays.equals(expected, actual));
+      scalar.subtract(a, b, expected);
+      vector.subtract(a, b, actual);
+      assertTrue(Arrays.equals(expected, actual));
+      scalar.negate(a, expected);
+      vector.negate(a, actual);
+      assertTrue(Arrays.equals(expected, actual));
+    }
+  }
+
+  @Test
+  public void testAddScaled() {
+    for (int start = 0; start < 10; start++) {
+      for (int end = start; end < 70; end += 7) {
+        int scale = random.nextInt();
+        int[] values = randomArray(70, false);
+        int[] expected = randomArray(70, false);
+        int[] actual = expected.clone();
+        scalar.addScaled(scale, values, expected, start, end);
+        vector.addScaled(scale, values, actual, start, end);
+        assertTrue(Arrays.equals(expected, actual));
+      }
+    }
+  }
+}
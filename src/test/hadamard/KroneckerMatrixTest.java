@@ -0,0 +1,55 @@
+package hadamard;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class KroneckerMatrixTest {
+  private static void assertPackRowMatchesEntries(MatrixView matrix, int row) {
+    long[] words = new long[PackedMatrix.wordsPerRow(matrix.size())];
+    int[] values = new int[matrix.size()];
+    assertTrue(matrix.packRow(row, words));
+    matrix.copyRow(row, values);
+    for (int column = 0; column < matrix.size(); column++) {
+      boolean negative = (words[column >>> 6] & (1L << column)) != 0;
+      assertEquals(matrix.at(row, column), negative ? -1 : 1);
+      assertEquals(matrix.at(row, column), values[column]);
+    }
+    assertEquals(0, words[words.length - 1] & ~PackedMatrix.lastWordMask(matrix.size()));
+  }
+
+  @Test
+  public void testSylvesterIsDoubling() {
+    Matrix doubled = new Matrix(new int[][] {{1}});
+    for (int order = 2; order <= 256; order *= 2) {
+      doubled = SylvesterMatrix.doubling(doubled).toMatrix();
+      assertEquals(doubled, SylvesterMatrix.ofOrder(order).toMatrix());
+    }
+    assertTrue(HadamardVerifier.verify(SylvesterMatrix.ofOrder(256)).isHadamard());
+  }
+
+  @Test
+  public void testMatchesDenseKronecker() {
+    Matrix paley = new Paley().paleyConstructionTwo(5, 1);
+    Matrix sylvester = SylvesterMatrix.ofOrder(8).toMatrix();
+    KroneckerMatrix product = KroneckerMatrix.of(sylvester, paley);
+    assertEquals(96, product.size());
+    assertEquals(sylvester.kronecker(paley), product.toMatrix());
+    assertEquals(paley.kronecker(sylvester), KroneckerMatrix.of(paley, sylvester).toMatrix());
+    assertTrue(product.isHadamard());
+    assertTrue(HadamardVerifier.verify(product).isHadamard());
+  }
+
+  @Test
+  public void testStreamsRowsOfLargeProducts() {
+    MatrixView product = KroneckerMatrix.of(SylvesterMatrix.ofOrder(128),
+        new Paley().lazyPaleyConstructionOne(127, 1));
+    assertEquals(16384, product.size());
+    for (int row : new int[] {0, 1, 127, 128, 5000, 16383}) {
+      assertPackRowMatchesEntries(product, row);
+    }
+    assertPackRowMatchesEntries(SylvesterMatrix.ofOrder(16384), 12345);
+    assertPackRowMatchesEntries(SylvesterMatrix.ofOrder(32), 27);
+  }
+}
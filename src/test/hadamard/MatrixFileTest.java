@@ -0,0 +1,192 @@
+package hadamard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertArrayEquals;
+
+public class MatrixFileTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static void flipByte(Path file, long position) throws IOException {
+    try (RandomAccessFile access = new RandomAccessFile(file.toFile(), "rw")) {
+      access.seek(position);
+      int value = access.read();
+      access.seek(position);
+      access.write(value ^ 1);
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Matrix matrix = new Paley().paleyConstructionOne(131, 1);
+    Path file = folder.getRoot().toPath().resolve("paley.hmat");
+    MatrixFile.write(file, matrix,
+        new MatrixFile.Header(132, Construction.PALEY_ONE, 131, 1, true));
+
+    MappedMatrix mapped = MatrixFile.map(file);
+    mapped.checkBody();
+    assertEquals(matrix, mapped.toMatrix());
+    assertEquals(PackedMatrix.fromMatrix(matrix), PackedMatrix.fromView(mapped));
+    assertTrue(HadamardVerifier.verify(mapped).isHadamard());
+    MatrixFile.Header header = mapped.getHeader();
+    assertEquals(132, header.getOrder());
+    assertEquals(Construction.PALEY_ONE, header.getConstruction());
+    assertEquals(131, header.getP());
+    assertEquals(1, header.getExponent());
+    assertTrue(header.isVerified());
+    assertEquals(MatrixFile.HEADER_BYTES + 132 * 3 * 8, file.toFile().length());
+  }
+
+  @Test
+  public void testRowsSpanSeveralMappings() {
+    MatrixView matrix = KroneckerMatrix.of(SylvesterMatrix.ofOrder(4),
+        new Paley().lazyPaleyConstructionTwo(29, 1));
+    Path file = folder.getRoot().toPath().resolve("kronecker.hmat");
+    MatrixFile.write(file, matrix, new MatrixFile.Header(240, null, 0, 0, false));
+    MappedMatrix mapped = new MappedMatrix(file, MatrixFile.readHeader(file), 100);
+    mapped.checkBody();
+    assertEquals(matrix.toMatrix(), mapped.toMatrix());
+    assertNull(mapped.getHeader().getConstruction());
+    assertFalse(mapped.getHeader().isVerified());
+  }
+
+  @Test
+  public void testMappedMatrixIsNotCopied() throws IOException {
+    MatrixView matrix = KroneckerMatrix.of(SylvesterMatrix.ofOrder(4),
+        new Paley().lazyPaleyConstructionTwo(29, 1));
+    Path file = folder.getRoot().toPath().resolve("kronecker.hmat");
+    MatrixFile.write(file, matrix, new MatrixFile.Header(240, null, 0, 0, false));
+    AtomicInteger packed = new AtomicInteger();
+    MappedMatrix mapped = new MappedMatrix(file, MatrixFile.readHeader(file), 1000) {
+      @Override
+      public boolean packRow(int row, long[] words) {
+        packed.incrementAndGet();
+        return super.packRow(row, words);
+      }
+    };
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      // Only CirculantVerifier's look at the leading rows packs anything.
+      assertTrue(HadamardVerifier.verify(mapped).isHadamard());
+      assertTrue(new ParallelHadamardVerifier(pool, 16).verify(mapped).isHadamard());
+      assertTrue(packed.get() <= 4);
+
+      HadamardTransform transform = HadamardTransform.of(mapped);
+      assertFalse(transform.isFast());
+      assertTrue(packed.get() <= 4);
+      int[][] vectors = new int[3][240];
+      for (int vector = 0; vector < vectors.length; vector++) {
+        for (int i = 0; i < 240; i++) {
+          vectors[vector][i] = (vector + 1) * i % 17 - 8;
+        }
+      }
+      int[][] expected = new int[vectors.length][];
+      for (int vector = 0; vector < vectors.length; vector++) {
+        expected[vector] = vectors[vector].clone();
+      }
+      HadamardTransform.of(matrix).applyAll(expected);
+      transform.applyAll(vectors, pool);
+      assertArrayEquals(expected, vectors);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testMappedVerificationMatchesHeap() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("paley.hmat");
+    MatrixFile.write(file, new Paley().paleyConstructionTwo(37, 1),
+        new MatrixFile.Header(76, Construction.PALEY_TWO, 37, 1, true));
+    flipByte(file, MatrixFile.HEADER_BYTES + 40 * MatrixFile.rowBytes(76) + 3);
+    MappedMatrix mapped = new MappedMatrix(file, MatrixFile.readHeader(file), 100);
+    HadamardVerifier.Result expected = HadamardVerifier.verify(mapped.toMatrix());
+    assertFalse(expected.isHadamard());
+    assertEquals(expected, HadamardVerifier.verify(mapped));
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      assertEquals(expected, new ParallelHadamardVerifier(pool, 8).verify(mapped));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testDetectsCorruption() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("sylvester.hmat");
+    MatrixFile.write(file, SylvesterMatrix.ofOrder(64),
+        new MatrixFile.Header(64, Construction.SYLVESTER, 2, 6, true));
+    flipByte(file, MatrixFile.HEADER_BYTES + 100);
+    MappedMatrix mapped = MatrixFile.map(file);
+    try {
+      mapped.checkBody();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    flipByte(file, 8);
+    try {
+      MatrixFile.readHeader(file);
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void testRejectsNonSignMatrix() throws IOException {
+    try {
+      MatrixFile.write(folder.getRoot().toPath().resolve("bad.hmat"), new Matrix(4),
+          new MatrixFile.Header(4, null, 0, 0, false));
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    // The temporary file is removed along with the failed write.
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  public void testConcurrentWritersOfOneFile() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("shared.hmat");
+    MatrixView matrix = SylvesterMatrix.ofOrder(256);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> writes = new ArrayList<>();
+      for (int writer = 0; writer < 8; writer++) {
+        writes.add(executor.submit(() -> MatrixFile.write(file, matrix,
+            new MatrixFile.Header(256, null, 0, 0, true))));
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    MappedMatrix mapped = MatrixFile.map(file);
+    mapped.checkBody();
+    assertEquals(PackedMatrix.fromView(matrix), PackedMatrix.fromView(mapped));
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      assertEquals(1, files.count());
+    }
+  }
+}
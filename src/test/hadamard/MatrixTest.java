@@ -0,0 +1,78 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class MatrixTest {
+  private static Matrix randomMatrix(int order, long seed) {
+    Random random = new Random(seed);
+    int[][] values = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      for (int column = 0; column < order; column++) {
+        values[row][column] = random.nextInt(7) - 3;
+      }
+    }
+    return new Matrix(values);
+  }
+
+  private static Matrix naiveTimes(Matrix a, Matrix b) {
+    int order = a.size();
+    int[][] result = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      for (int column = 0; column < order; column++) {
+        for (int k = 0; k < order; k++) {
+          result[row][column] += a.at(row, k) * b.at(k, column);
+        }
+      }
+    }
+    return new Matrix(result);
+  }
+
+  @Test
+  public void testTimesMatchesNaive() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for (int order : new int[] {1, 5, 64, 70, 150}) {
+        Matrix a = randomMatrix(order, order);
+        Matrix b = randomMatrix(order, order + 1);
+        Matrix expected = naiveTimes(a, b);
+        assertEquals(expected, a.times(b));
+        assertEquals(expected, a.times(b, pool));
+        Matrix expectedTranspose = naiveTimes(a, b.transpose());
+        assertEquals(expectedTranspose, a.timesTranspose(b));
+        assertEquals(expectedTranspose, a.timesTranspose(b, pool));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testGramMatrixOfHadamard() {
+    Matrix hadamard = new Paley().paleyConstructionOne(43, 1);
+    assertTrue(hadamard.timesTranspose(hadamard).isNTimesIdentity());
+  }
+
+  @Test
+  public void testColumnSummaryMatchesRow() {
+    Matrix hadamard = new Paley().paleyConstructionOne(19, 1);
+    Matrix transpose = hadamard.transpose();
+    for (int column = 0; column < hadamard.size(); column++) {
+      int[] reversed = new int[hadamard.size()];
+      for (int row = 0; row < hadamard.size(); row++) {
+        reversed[row] = transpose.at(column, hadamard.size() - 1 - row);
+      }
+      assertEquals(Row.fromArray(reversed).getSummaryInt(), hadamard.columnSummary(column));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testColumnSummaryRejectsLargeOrders() {
+    new Paley().paleyConstructionOne(31, 1).columnSummary(0);
+  }
+}
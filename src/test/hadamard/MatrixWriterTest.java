@@ -0,0 +1,93 @@
+package hadamard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class MatrixWriterTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // The String.format output Matrix.toString and toTexString always produced.
+  private static String formattedPlain(int[][] values) {
+    StringBuilder result = new StringBuilder();
+    for (int[] row : values) {
+      for (int value : row) {
+        result.append(String.format("%2d ", value));
+      }
+      result.append('\n');
+    }
+    return result.toString();
+  }
+
+  private static String formattedTex(int[][] values) {
+    StringBuilder result = new StringBuilder("\\begin{equation}\n\\begin{pmatrix}\n");
+    for (int[] row : values) {
+      for (int column = 0; column < row.length; column++) {
+        result.append(String.format("%s%s", column == 0 ? "" : " & ",
+            row[column] == -1 ? "-" : "1"));
+      }
+      result.append(" \\\\\n");
+    }
+    return result.append("\\end{pmatrix}\n\\end{equation}\n").toString();
+  }
+
+  private static int[][] randomValues(int order, long seed) {
+    Random random = new Random(seed);
+    int[][] values = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      for (int column = 0; column < order; column++) {
+        values[row][column] = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(25) - 12;
+      }
+    }
+    values[0][0] = Integer.MIN_VALUE;
+    values[0][1] = Integer.MAX_VALUE;
+    return values;
+  }
+
+  @Test
+  public void testMatchesFormattedOutput() {
+    for (int order : new int[] {2, 7, 40}) {
+      int[][] values = randomValues(order, order);
+      Matrix matrix = new Matrix(values);
+      assertEquals(formattedPlain(values), matrix.toString());
+      assertEquals(formattedTex(values), matrix.toTexString());
+      assertEquals(formattedPlain(values).split("\n")[3 % order],
+          Row.fromArray(values[3 % order]).toString());
+    }
+    Matrix paley = new Paley().paleyConstructionTwo(5, 1);
+    assertEquals(paley.toString(), PackedMatrix.fromMatrix(paley).toString());
+    assertEquals("", Row.fromArray(new int[0]).toString());
+  }
+
+  @Test
+  public void testCsvAndCompact() throws IOException {
+    Matrix matrix = new Matrix(new int[][] {{1, 1}, {1, -1}});
+    assertEquals("1,1\n1,-1\n", MatrixWriter.toString(matrix, MatrixWriter.Format.CSV));
+    assertEquals("++\n+-\n", MatrixWriter.toString(matrix, MatrixWriter.Format.COMPACT));
+
+    MatrixView sylvester = SylvesterMatrix.ofOrder(256);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    new MatrixWriter(MatrixWriter.Format.COMPACT).write(sylvester, stream);
+    Path file = folder.getRoot().toPath().resolve("sylvester.txt");
+    new MatrixWriter(MatrixWriter.Format.COMPACT).write(sylvester, file);
+    String expected = MatrixWriter.toString(sylvester, MatrixWriter.Format.COMPACT);
+    assertEquals(256 * 257, expected.length());
+    assertEquals(expected, stream.toString(StandardCharsets.US_ASCII.name()));
+    assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCompactRejectsOtherEntries() {
+    MatrixWriter.toString(Matrix.identity(3), MatrixWriter.Format.COMPACT);
+  }
+}
@@ -0,0 +1,44 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class OrderPlannerTest {
+  @Test
+  public void testChoosesConstruction() {
+    OrderPlanner planner = new OrderPlanner();
+    assertEquals(Construction.SYLVESTER, planner.constructionFor(64).getConstruction());
+    assertEquals(Construction.PALEY_ONE, planner.constructionFor(12).getConstruction());
+    assertEquals(Construction.PALEY_TWO, planner.constructionFor(36).getConstruction());
+    assertEquals(Construction.KRONECKER, planner.constructionFor(24).getConstruction());
+    assertEquals(Construction.WILLIAMSON, planner.constructionFor(92).getConstruction());
+    assertNull(planner.constructionFor(6));
+  }
+
+  @Test
+  public void testPlansAreMemoized() {
+    OrderPlanner planner = new OrderPlanner();
+    assertSame(planner.constructionFor(96), planner.constructionFor(96));
+    assertSame(planner.constructionFor(96).getRight(), planner.constructionFor(12));
+  }
+
+  @Test
+  public void testEveryPlanBuildsHadamard() {
+    OrderPlanner planner = new OrderPlanner();
+    for (int order = 1; order <= 200; order++) {
+      OrderPlanner.Plan plan = planner.constructionFor(order);
+      if (plan == null) {
+        continue;
+      }
+      MatrixView matrix = plan.build(ForkJoinPool.commonPool());
+      assertEquals(order, matrix.size());
+      assertTrue(plan.toString(), HadamardVerifier.verify(matrix).isHadamard());
+    }
+  }
+}
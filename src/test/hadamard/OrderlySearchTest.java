@@ -0,0 +1,53 @@
+package hadamard;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class OrderlySearchTest {
+  @Test
+  public void testOneClassAtOrderEight() {
+    assertEquals(1, new OrderlySearch(8, 7).count());
+  }
+
+  @Test
+  public void testCanonicalPruningKeepsMatricesValid() {
+    OrderlySearch unpruned = new OrderlySearch(12, 0);
+    OrderlySearch pruned = new OrderlySearch(12, 6);
+    long unprunedCount = unpruned.enumerate(codes -> {
+      assertTrue(OrderlySearch.toMatrix(12, codes).isHadamard());
+      return true;
+    });
+    assertTrue(pruned.count() >= 1);
+    assertTrue(pruned.count() <= unprunedCount);
+    assertTrue(pruned.getNodes() < unpruned.getNodes());
+  }
+
+  @Test
+  public void testRowsAndColumnsAreDoubleLex() {
+    OrderlySearch search = new OrderlySearch(16, 7);
+    long count = search.enumerate(codes -> {
+      Matrix matrix = OrderlySearch.toMatrix(16, codes);
+      assertTrue(matrix.isHadamard());
+      for (int row = 2; row < 16; row++) {
+        assertTrue(matrix.rowSummary(row - 1) < matrix.rowSummary(row));
+      }
+      Matrix transpose = matrix.transpose();
+      for (int column = 2; column < 16; column++) {
+        assertTrue(transpose.rowSummary(column - 1) <= transpose.rowSummary(column));
+      }
+      return true;
+    });
+    assertEquals(41, count);
+  }
+
+  @Test
+  public void testFindsLargerOrders() {
+    for (int order : new int[] {20, 24}) {
+      Matrix matrix = new OrderlySearch(order, 5).findFirst();
+      assertEquals(order, matrix.size());
+      assertTrue(matrix.isHadamard());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class PackedMatrixTest {
+  private static Matrix randomSignMatrix(int order, long seed) {
+    Random random = new Random(seed);
+    int[][] values = new int[order][order];
+    for (int row = 0; row < order; row++) {
+      for (int column = 0; column < order; column++) {
+        values[row][column] = random.nextBoolean() ? 1 : -1;
+      }
+    }
+    return new Matrix(values);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Matrix matrix = randomSignMatrix(130, 1);
+    assertEquals(matrix, PackedMatrix.fromMatrix(matrix).toMatrix());
+  }
+
+  @Test
+  public void testTransposeMatchesDense() {
+    for (int order : new int[] {1, 63, 64, 65, 200}) {
+      Matrix matrix = randomSignMatrix(order, order);
+      assertEquals(matrix.transpose(), PackedMatrix.fromMatrix(matrix).transpose().toMatrix());
+    }
+  }
+
+  @Test
+  public void testNegateMatchesDense() {
+    Matrix matrix = randomSignMatrix(70, 2);
+    PackedMatrix negated = PackedMatrix.fromMatrix(matrix).negate();
+    assertEquals(matrix.negate(), negated.toMatrix());
+    assertEquals(PackedMatrix.fromMatrix(matrix.negate()), negated);
+  }
+
+  @Test
+  public void testDotMatchesRow() {
+    Matrix matrix = randomSignMatrix(100, 3);
+    PackedMatrix packed = PackedMatrix.fromMatrix(matrix);
+    for (int row = 1; row < 100; row++) {
+      Row dense = Row.fromArray(matrix.row(0));
+      assertEquals(dense.dot(Row.fromArray(matrix.row(row))), packed.dot(0, row));
+      assertEquals(dense.numDifferences(Row.fromArray(matrix.row(row))),
+          packed.getRow(0).numDifferences(packed.getRow(row)));
+    }
+  }
+
+  @Test
+  public void testRowFromBits() {
+    Row a = Row.fromBits(8, 0b10110010);
+    Row b = Row.fromBits(8, 0b01110100);
+    Row denseA = Row.fromArray(new int[] {1, -1, 1, 1, -1, -1, 1, -1});
+    Row denseB = Row.fromArray(new int[] {-1, 1, 1, 1, -1, 1, -1, -1});
+    assertEquals(denseA.dot(denseB), a.dot(b));
+    assertEquals(denseA.numDifferences(denseB), a.numDifferences(b));
+    assertEquals(denseA.negate().dot(denseB), a.negate().dot(b));
+  }
+
+  @Test
+  public void testIsHadamard() {
+    Paley paley = new Paley();
+    assertTrue(PackedMatrix.fromMatrix(paley.paleyConstructionOne(3, 3)).isHadamard());
+    assertTrue(PackedMatrix.fromMatrix(paley.paleyConstructionTwo(7, 2)).isHadamard());
+    assertFalse(PackedMatrix.fromMatrix(randomSignMatrix(12, 4)).isHadamard());
+    assertFalse(Matrix.identity(4).isHadamard());
+  }
+}
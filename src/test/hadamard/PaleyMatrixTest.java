@@ -0,0 +1,58 @@
+package hadamard;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class PaleyMatrixTest {
+  private final Paley paley = new Paley();
+
+  @Test
+  public void testMatchesDenseConstructions() {
+    int[][] constructionOne = {{3, 1}, {7, 1}, {3, 3}, {11, 1}, {7, 3}};
+    for (int[] parameters : constructionOne) {
+      assertEquals(paley.paleyConstructionOne(parameters[0], parameters[1]),
+          paley.lazyPaleyConstructionOne(parameters[0], parameters[1]).toMatrix());
+    }
+    int[][] constructionTwo = {{5, 1}, {3, 2}, {13, 1}, {5, 2}, {3, 4}};
+    for (int[] parameters : constructionTwo) {
+      assertEquals(paley.paleyConstructionTwo(parameters[0], parameters[1]),
+          paley.lazyPaleyConstructionTwo(parameters[0], parameters[1]).toMatrix());
+    }
+  }
+
+  @Test
+  public void testPackRowMatchesEntries() {
+    PaleyMatrix matrix = paley.lazyPaleyConstructionTwo(5, 3);
+    long[] words = new long[PackedMatrix.wordsPerRow(matrix.size())];
+    for (int row = 0; row < matrix.size(); row++) {
+      assertTrue(matrix.packRow(row, words));
+      for (int column = 0; column < matrix.size(); column++) {
+        boolean negative = (words[column >>> 6] & (1L << column)) != 0;
+        assertEquals(matrix.at(row, column), negative ? -1 : 1);
+      }
+    }
+  }
+
+  @Test
+  public void testLargeViewsVerify() {
+    assertTrue(HadamardVerifier.verify(paley.lazyPaleyConstructionOne(3, 7)).isHadamard());
+    assertTrue(ParallelHadamardVerifier.getDefault()
+        .verify(paley.lazyPaleyConstructionTwo(3, 6)).isHadamard());
+  }
+
+  @Test
+  public void testPrimesAboveTwoHundred() {
+    assertTrue(HadamardVerifier.verify(paley.lazyPaleyConstructionOne(19991, 1)).isHadamard());
+    PaleyMatrix matrix = paley.lazyPaleyConstructionTwo(167, 2);
+    assertEquals(55780, matrix.size());
+    long[] first = new long[PackedMatrix.wordsPerRow(matrix.size())];
+    long[] other = new long[first.length];
+    matrix.packRow(0, first);
+    for (int row : new int[] {1, 2, 27889, 27890, 55779}) {
+      matrix.packRow(row, other);
+      assertEquals(matrix.size(), 2 * PackedMatrix.numDifferences(first, other));
+    }
+  }
+}
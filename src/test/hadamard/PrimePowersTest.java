@@ -0,0 +1,24 @@
+package hadamard;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+
+public class PrimePowersTest {
+  @Test
+  public void testDecompose() {
+    assertEquals(new PrimePowers.PrimePower(19991, 1), PrimePowers.decompose(19991));
+    assertEquals(new PrimePowers.PrimePower(3, 9), PrimePowers.decompose(19683));
+    assertEquals(new PrimePowers.PrimePower(167, 2), PrimePowers.decompose(27889));
+    assertEquals(new PrimePowers.PrimePower(2, 62), PrimePowers.decompose(1L << 62));
+    assertEquals(new PrimePowers.PrimePower(2_147_483_647L, 2),
+        PrimePowers.decompose(2_147_483_647L * 2_147_483_647L));
+    assertEquals(new PrimePowers.PrimePower((1L << 61) - 1, 1),
+        PrimePowers.decompose((1L << 61) - 1));
+    assertNull(PrimePowers.decompose(1));
+    assertNull(PrimePowers.decompose(45));
+    assertNull(PrimePowers.decompose(1L << 62 | 1));
+    assertNull(PrimePowers.decompose(2_147_483_647L * 2_147_483_629L));
+  }
+}
@@ -0,0 +1,99 @@
+package hadamard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class ShardedSearchTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testShardsPartitionCliqueSearch() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    int total = 0;
+    for (int shard = 0; shard < 3; shard++) {
+      ShardedSearch.runShard("clique", 8, shard, 3, directory, 0);
+      total += lines(directory.resolve(ShardedSearch.shardName(shard, 3) + ".txt")).size();
+    }
+    assertEquals(30, total);
+    assertEquals(30, ShardedSearch.merge(directory));
+  }
+
+  @Test
+  public void testMergeRemovesDuplicates() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    for (int shard = 0; shard < 2; shard++) {
+      ShardedSearch.runShard("orderly", 16, shard, 2, directory, 7);
+    }
+    Path first = directory.resolve(ShardedSearch.shardName(0, 2) + ".txt");
+    List<String> results = lines(first);
+    Files.write(first, results, StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+    assertEquals(41, ShardedSearch.merge(directory));
+    for (String line : lines(directory.resolve(ShardedSearch.MERGED))) {
+      int[] codes = Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray();
+      assertTrue(OrderlySearch.toMatrix(16, codes).isHadamard());
+    }
+  }
+
+  @Test
+  public void testLaunchesShardProcesses() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    assertEquals(30, ShardedSearch.launch("clique", 8, 2, directory, 0));
+  }
+
+  @Test
+  public void testKilledShardRestartsCleanly() throws Exception {
+    Path reference = folder.newFolder("reference").toPath();
+    ShardedSearch.runShard("clique", 12, 0, 1, reference, 0);
+    assertEquals(60480, ShardedSearch.merge(reference));
+
+    // Checkpoint at every node, and kill the shard once a checkpoint records some output.
+    Path directory = folder.newFolder("killed").toPath();
+    String name = ShardedSearch.shardName(0, 1);
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    Process process = new ProcessBuilder(java, "-Dhadamard.checkpoint.seconds=0",
+        "-cp", System.getProperty("java.class.path"), ShardedSearch.class.getName(), "shard",
+        "clique", "12", "0", "1", directory.toString()).inheritIO().start();
+    Path checkpoint = directory.resolve(name + ".ckpt");
+    while (process.isAlive()
+        && (!Files.exists(checkpoint) || Checkpoint.read(checkpoint).getOutputBytes() == 0)) {
+      Thread.sleep(10);
+    }
+    process.destroyForcibly().waitFor();
+    assertFalse(Files.exists(directory.resolve(name + ".done")));
+    assertFalse(Checkpoint.read(checkpoint).isComplete());
+
+    // A kill between checkpoints can leave a partial line.
+    Files.write(directory.resolve(name + ".txt"), "1,2".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+    ShardedSearch.runShard("clique", 12, 0, 1, directory, 0);
+    assertEquals(60480, ShardedSearch.merge(directory));
+    assertEquals(lines(reference.resolve(ShardedSearch.MERGED)),
+        lines(directory.resolve(ShardedSearch.MERGED)));
+  }
+
+  @Test
+  public void testShardOfIsStable() {
+    int[] path = {5, 17, 40};
+    assertEquals(ShardedSearch.shardOf(path, 2, 7), ShardedSearch.shardOf(new int[] {5, 17}, 2, 7));
+    assertTrue(ShardedSearch.shardOf(new int[] {-3}, 1, 4) >= 0);
+  }
+
+  private static List<String> lines(Path file) throws Exception {
+    return Files.readAllLines(file, StandardCharsets.UTF_8);
+  }
+}
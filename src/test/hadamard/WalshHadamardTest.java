@@ -0,0 +1,104 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+
+public class WalshHadamardTest {
+  private final Random random = new Random(5);
+
+  private static long[] naive(long[] values) {
+    SylvesterMatrix sylvester = SylvesterMatrix.ofOrder(values.length);
+    long[] result = new long[values.length];
+    for (int row = 0; row < values.length; row++) {
+      for (int column = 0; column < values.length; column++) {
+        result[row] += sylvester.at(row, column) * values[column];
+      }
+    }
+    return result;
+  }
+
+  private long[] randomLongs(int length) {
+    long[] values = new long[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = random.nextInt(2001) - 1000;
+    }
+    return values;
+  }
+
+  @Test
+  public void testMatchesSylvesterProduct() {
+    for (int length = 1; length <= 4 * WalshHadamard.BLOCK; length *= 2) {
+      long[] values = randomLongs(length);
+      long[] expected = naive(values);
+      long[] longs = values.clone();
+      WalshHadamard.transform(longs);
+      assertArrayEquals(expected, longs);
+      int[] ints = Arrays.stream(values).mapToInt(value -> (int) value).toArray();
+      WalshHadamard.transform(ints);
+      assertArrayEquals(Arrays.stream(expected).mapToInt(value -> (int) value).toArray(), ints);
+      double[] doubles = Arrays.stream(values).asDoubleStream().toArray();
+      WalshHadamard.transform(doubles);
+      assertArrayEquals(Arrays.stream(expected).asDoubleStream().toArray(), doubles, 0);
+    }
+  }
+
+  @Test
+  public void testTransformTwiceScales() {
+    double[] values = new double[1 << 12];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextGaussian();
+    }
+    double[] transformed = values.clone();
+    WalshHadamard.transform(transformed);
+    WalshHadamard.transform(transformed);
+    for (int i = 0; i < values.length; i++) {
+      assertTrue(Math.abs(transformed[i] / values.length - values[i]) < 1e-9);
+    }
+  }
+
+  @Test
+  public void testOffsetLeavesNeighboursAlone() {
+    long[] values = randomLongs(40);
+    long[] expected = values.clone();
+    System.arraycopy(naive(Arrays.copyOfRange(values, 4, 36)), 0, expected, 4, 32);
+    WalshHadamard.transform(values, 4, 32);
+    assertArrayEquals(expected, values);
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      long[] values = randomLongs(1 << 17);
+      long[] serial = values.clone();
+      WalshHadamard.transform(serial);
+      WalshHadamard.transform(values, pool);
+      assertArrayEquals(serial, values);
+
+      int[][] vectors = new int[50][256];
+      int[][] expected = new int[50][];
+      for (int vector = 0; vector < vectors.length; vector++) {
+        for (int i = 0; i < 256; i++) {
+          vectors[vector][i] = random.nextInt();
+        }
+        expected[vector] = vectors[vector].clone();
+        WalshHadamard.transform(expected[vector]);
+      }
+      WalshHadamard.transformAll(vectors, pool);
+      assertArrayEquals(expected, vectors);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRejectsNonPowerOfTwo() {
+    WalshHadamard.transform(new double[12]);
+  }
+}
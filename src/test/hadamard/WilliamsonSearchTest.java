@@ -0,0 +1,51 @@
+package hadamard;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertTrue;
+
+public class WilliamsonSearchTest {
+  @Test
+  public void testSequencesAreComplementary() {
+    for (int length : new int[] {1, 3, 5, 7, 9, 11, 13}) {
+      WilliamsonSearch.Sequences sequences =
+          new WilliamsonSearch(length, ForkJoinPool.commonPool()).find();
+      assertNotNull(sequences);
+      for (int shift = 1; shift < length; shift++) {
+        int sum = 0;
+        for (int index = 0; index < 4; index++) {
+          int[] sequence = sequences.get(index);
+          for (int j = 0; j < length; j++) {
+            sum += sequence[j] * sequence[(j + shift) % length];
+          }
+        }
+        assertEquals(0, sum);
+      }
+    }
+  }
+
+  @Test
+  public void testRowSumDecompositions() {
+    WilliamsonSearch search = new WilliamsonSearch(23, ForkJoinPool.commonPool());
+    for (int[] rowSums : search.rowSumDecompositions()) {
+      int sum = 0;
+      for (int rowSum : rowSums) {
+        assertEquals(1, rowSum % 2);
+        sum += rowSum * rowSum;
+      }
+      assertEquals(92, sum);
+    }
+    assertEquals(2, search.rowSumDecompositions().size());
+  }
+
+  @Test
+  public void testConstructOrder92() {
+    Matrix matrix = WilliamsonSearch.construct(92, ForkJoinPool.commonPool());
+    assertEquals(92, matrix.size());
+    assertTrue(matrix.isHadamard());
+  }
+}